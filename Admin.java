@@ -1,7 +1,7 @@
 public class Admin extends User {
 
-    public Admin(String username) {
-        super(username);
+    public Admin(Session session) {
+        super(session);
     }
 
     @Override
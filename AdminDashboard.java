@@ -5,17 +5,43 @@ import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.*;
+import java.io.File;
+import java.io.IOException;
 import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 
 public class AdminDashboard extends JFrame {
     private JTabbedPane tabbedPane;
-    private DefaultTableModel userTableModel, appointmentTableModel;
+    private PagedTableModel userTableModel, appointmentTableModel;
+    // Position of the hidden row_version value in userTableModel rows
+    private static final int USER_ROW_VERSION_INDEX = 6;
+    private DefaultTableModel analyticsTableModel;
     private JButton themeToggleButton;
+    private JProgressBar reportProgressBar;
+    private JButton cancelReportButton;
+    // This window's outstanding report requests, by report type (EDT only)
+    private final Map<String, ReportJobQueue.Request> reportRequests = new HashMap<>();
+    // All JDBC for this window runs here, never on the EDT; cancelled when the window closes
+    private final BackgroundLoader loader = new BackgroundLoader(this);
 
     public AdminDashboard() {
         setupUI();
+        // Logging out abandons this window's reports (other admins' requests for the same report keep it running)
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                cancelReports();
+            }
+        });
         loadUserData();
         loadAppointmentData();
+        loadAnalyticsData();
     }
 
     private void setupUI() {
@@ -78,7 +104,7 @@ public class AdminDashboard extends JFrame {
         tabbedPane.addTab("Appointment Management", createAppointmentManagementPanel());
         tabbedPane.addTab("System Settings", createSystemSettingsPanel());
         tabbedPane.addTab("Analytics", createAnalyticsPanel());
-        tabbedPane.addTab("Analytics Charts", new AnalyticsChartsPanel());
+        tabbedPane.addTab("Analytics Charts", new AnalyticsChartsPanel(loader));
 
         mainPanel.add(headerPanel, BorderLayout.NORTH);
         mainPanel.add(tabbedPane, BorderLayout.CENTER);
@@ -102,9 +128,20 @@ public class AdminDashboard extends JFrame {
 
         // Table
         String[] columns = {"User ID", "Username", "Name", "Email", "Role", "Status"};
-        userTableModel = new DefaultTableModel(columns, 0) {
-            public boolean isCellEditable(int row, int column) { return false; }
-        };
+        // Fetched a page at a time as the table scrolls (keyset on user_id)
+        userTableModel = new PagedTableModel(columns, loader,
+            "user_id, username, name, email, role, status, row_version", "users", null, null, null,
+            new String[]{"user_id"}, false,
+            rs -> new Object[]{
+                rs.getString("user_id"),
+                rs.getString("username"),
+                rs.getString("name"),
+                rs.getString("email"),
+                rs.getString("role"),
+                rs.getString("status"),
+                rs.getLong("row_version") // not shown; checked when editing
+            });
+        userTableModel.setOnError(e -> JOptionPane.showMessageDialog(this, "Error loading users: " + e.getMessage()));
         JTable userTable = new JTable(userTableModel);
         JScrollPane scrollPane = new JScrollPane(userTable);
 
@@ -157,9 +194,34 @@ public class AdminDashboard extends JFrame {
         panel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
 
         String[] columns = {"Appointment ID", "Patient", "Doctor", "Date", "Time", "Status", "Type"};
-        appointmentTableModel = new DefaultTableModel(columns, 0) {
-            public boolean isCellEditable(int row, int column) { return false; }
-        };
+        // Names resolved in the same query (same joins as PDFReportService) instead of
+        // two extra lookups per row. LEFT JOINs keep appointments whose patient/doctor is gone.
+        // appointment_id breaks ties between appointments on the same date.
+        appointmentTableModel = new PagedTableModel(columns, loader,
+            "a.appointment_id, a.patient_id, a.doctor_id, " +
+            "u_p.name as patient_name, u_d.name as doctor_name, " +
+            "a.appointment_date, a.appointment_time, a.status, a.type",
+            "appointments a " +
+            "LEFT JOIN patients p ON a.patient_id = p.patient_id " +
+            "LEFT JOIN users u_p ON p.user_id = u_p.user_id " +
+            "LEFT JOIN doctors d ON a.doctor_id = d.doctor_id " +
+            "LEFT JOIN users u_d ON d.user_id = u_d.user_id",
+            null, null, null,
+            new String[]{"a.appointment_date", "a.appointment_id"}, true,
+            rs -> new Object[]{
+                rs.getString("appointment_id"),
+                getPatientName(rs.getString("patient_id"), rs.getString("patient_name")),
+                getDoctorName(rs.getString("doctor_id"), rs.getString("doctor_name")),
+                rs.getString("appointment_date"),
+                rs.getString("appointment_time"),
+                rs.getString("status"),
+                rs.getString("type")
+            });
+        appointmentTableModel.setOnError(e -> {
+            JOptionPane.showMessageDialog(this, 
+                "Error loading appointments: " + e.getMessage());
+            e.printStackTrace();
+        });
         JTable appointmentTable = new JTable(appointmentTableModel);
         JScrollPane scrollPane = new JScrollPane(appointmentTable);
 
@@ -233,212 +295,197 @@ public class AdminDashboard extends JFrame {
         JPanel panel = new JPanel(new BorderLayout());
         panel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
 
-        try {
-            Connection conn = DatabaseConnection.getConnection();
-            
-            // Get statistics
-            String[] metrics = {"Total Users", "Active Doctors", "Total Patients", 
-                              "Total Appointments", "Pending Appointments", "Today's Appointments"};
-            
-            String[] values = new String[6];
-            
-            String[] queries = {
-                "SELECT COUNT(*) FROM users",
-                "SELECT COUNT(*) FROM users WHERE role='Doctor' AND status='Active'",
-                "SELECT COUNT(*) FROM users WHERE role='Patient' AND status='Active'",
-                "SELECT COUNT(*) FROM appointments",
-                "SELECT COUNT(*) FROM appointments WHERE status='Scheduled'",
-                "SELECT COUNT(*) FROM appointments WHERE appointment_date = CURDATE()"
+        // Statistics are filled in by loadAnalyticsData() once the snapshot arrives
+        String[] metrics = {"Total Users", "Active Doctors", "Total Patients", 
+                          "Total Appointments", "Pending Appointments", "Today's Appointments"};
+        
+        Object[][] data = new Object[metrics.length][2];
+        for (int i = 0; i < metrics.length; i++) {
+            data[i][0] = metrics[i];
+            data[i][1] = "Loading...";
+        }
+        
+        String[] columns = {"Metric", "Value"};
+        analyticsTableModel = new DefaultTableModel(data, columns);
+        JTable analyticsTable = new JTable(analyticsTableModel);
+        analyticsTable.setEnabled(false);
+        
+        JScrollPane scrollPane = new JScrollPane(analyticsTable);
+        
+        // PDF REPORTS SECTION
+        JPanel pdfReportsPanel = new JPanel(new FlowLayout());
+        pdfReportsPanel.setBorder(BorderFactory.createTitledBorder("Generate PDF Reports"));
+        
+        JButton dailyReportBtn = new JButton("Daily Report");
+        JButton monthlyReportBtn = new JButton("Monthly Report"); 
+        JButton allReportBtn = new JButton("All Appointments Report");
+        
+        // Button styling
+        dailyReportBtn.setBackground(new Color(70, 130, 180));
+        dailyReportBtn.setForeground(Color.WHITE);
+        monthlyReportBtn.setBackground(new Color(60, 179, 113));
+        monthlyReportBtn.setForeground(Color.WHITE);
+        allReportBtn.setBackground(new Color(205, 92, 92));
+        allReportBtn.setForeground(Color.WHITE);
+        
+        // FIXED: Lambda expressions replaced
+        dailyReportBtn.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                generatePDFReport("daily");
+            }
+        });
+
+        monthlyReportBtn.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                generatePDFReport("monthly");
+            }
+        });
+
+        allReportBtn.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                generatePDFReport("all");
+            }
+        });
+        
+        // Progress of this window's reports; they render in the background
+        reportProgressBar = new JProgressBar(0, 100);
+        reportProgressBar.setStringPainted(true);
+        reportProgressBar.setString("No report running");
+        cancelReportButton = new JButton("Cancel");
+        cancelReportButton.setEnabled(false);
+        cancelReportButton.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                cancelReports();
+            }
+        });
+        
+        pdfReportsPanel.add(dailyReportBtn);
+        pdfReportsPanel.add(monthlyReportBtn);
+        pdfReportsPanel.add(allReportBtn);
+        pdfReportsPanel.add(reportProgressBar);
+        pdfReportsPanel.add(cancelReportButton);
+        
+        // Main panel layout - Existing analytics + NEW PDF reports
+        JPanel mainPanel = new JPanel(new BorderLayout(10, 10));
+        mainPanel.add(new JLabel("System Analytics", JLabel.CENTER), BorderLayout.NORTH);
+        mainPanel.add(scrollPane, BorderLayout.CENTER);
+        mainPanel.add(pdfReportsPanel, BorderLayout.SOUTH);
+        
+        panel.add(mainPanel, BorderLayout.CENTER);
+
+        return panel;
+    }
+
+    private void loadAnalyticsData() {
+        loader.submit("metrics", DashboardMetricsService::getSnapshot, snapshot -> {
+            Object[] values = {
+                snapshot.getTotalUsers(),
+                snapshot.getActiveDoctors(),
+                snapshot.getActivePatients(),
+                snapshot.getTotalAppointments(),
+                snapshot.getPendingAppointments(),
+                snapshot.getTodaysAppointments()
             };
-            
-            Statement stmt = conn.createStatement();
-            for (int i = 0; i < queries.length; i++) {
-                ResultSet rs = stmt.executeQuery(queries[i]);
-                if (rs.next()) {
-                    values[i] = String.valueOf(rs.getInt(1));
-                }
-                rs.close();
+            for (int i = 0; i < values.length; i++) {
+                analyticsTableModel.setValueAt(String.valueOf(values[i]), i, 1);
             }
-            stmt.close();
-            
-            Object[][] data = new Object[metrics.length][2];
-            for (int i = 0; i < metrics.length; i++) {
-                data[i][0] = metrics[i];
-                data[i][1] = values[i];
+        }, e -> {
+            for (int i = 0; i < analyticsTableModel.getRowCount(); i++) {
+                analyticsTableModel.setValueAt("Error", i, 1);
             }
-            
-            String[] columns = {"Metric", "Value"};
-            DefaultTableModel model = new DefaultTableModel(data, columns);
-            JTable analyticsTable = new JTable(model);
-            analyticsTable.setEnabled(false);
-            
-            JScrollPane scrollPane = new JScrollPane(analyticsTable);
-            
-            // PDF REPORTS SECTION
-            JPanel pdfReportsPanel = new JPanel(new FlowLayout());
-            pdfReportsPanel.setBorder(BorderFactory.createTitledBorder("Generate PDF Reports"));
-            
-            JButton dailyReportBtn = new JButton("Daily Report");
-            JButton monthlyReportBtn = new JButton("Monthly Report"); 
-            JButton allReportBtn = new JButton("All Appointments Report");
-            
-            // Button styling
-            dailyReportBtn.setBackground(new Color(70, 130, 180));
-            dailyReportBtn.setForeground(Color.WHITE);
-            monthlyReportBtn.setBackground(new Color(60, 179, 113));
-            monthlyReportBtn.setForeground(Color.WHITE);
-            allReportBtn.setBackground(new Color(205, 92, 92));
-            allReportBtn.setForeground(Color.WHITE);
-            
-            // FIXED: Lambda expressions replaced
-            dailyReportBtn.addActionListener(new ActionListener() {
-                public void actionPerformed(ActionEvent e) {
-                    generatePDFReport("daily");
+            System.out.println("Error loading analytics: " + e.getMessage());
+        });
+    }
+
+    // PDF Report Generation Method - queued, never rendered on the EDT
+    private void generatePDFReport(String reportType) {
+        if (reportRequests.containsKey(reportType)) {
+            return; // already waiting for this one
+        }
+        // Small reports go ahead of the all-time one
+        int priority = "daily".equals(reportType) ? ReportJobQueue.PRIORITY_HIGH
+                     : "monthly".equals(reportType) ? ReportJobQueue.PRIORITY_NORMAL
+                     : ReportJobQueue.PRIORITY_LOW;
+        String label = Character.toUpperCase(reportType.charAt(0)) + reportType.substring(1) + " report";
+
+        ReportJobQueue.Request request = ReportJobQueue.submit(PDFReportService.jobKey(reportType), priority,
+            progress -> new PDFReportService().writeAppointmentReport(reportType, progress),
+            new ReportJobQueue.Listener() {
+                public void progress(int percent) {
+                    reportProgressBar.setValue(percent);
+                    reportProgressBar.setString(label + ": " + percent + "%");
+                }
+
+                public void finished(File file) {
+                    reportDone(reportType, label + " ready");
+                    // Success message
+                    JOptionPane.showMessageDialog(AdminDashboard.this,
+                        "PDF Report Generated Successfully!\n\n" +
+                        "File: " + file.getName() + "\n" +
+                        "Location: " + file.getParent(),
+                        "Report Generated",
+                        JOptionPane.INFORMATION_MESSAGE);
+                    // File open karein
+                    try {
+                        if (Desktop.isDesktopSupported()) {
+                            Desktop.getDesktop().open(file);
+                        }
+                    } catch (IOException ex) {
+                        System.out.println("Could not open " + file + ": " + ex.getMessage());
+                    }
                 }
-            });
 
-            monthlyReportBtn.addActionListener(new ActionListener() {
-                public void actionPerformed(ActionEvent e) {
-                    generatePDFReport("monthly");
+                public void failed(Exception e) {
+                    reportDone(reportType, label + " failed");
+                    JOptionPane.showMessageDialog(AdminDashboard.this,
+                        "Error generating PDF report: " + e.getMessage(),
+                        "Error",
+                        JOptionPane.ERROR_MESSAGE);
+                    e.printStackTrace();
                 }
-            });
 
-            allReportBtn.addActionListener(new ActionListener() {
-                public void actionPerformed(ActionEvent e) {
-                    generatePDFReport("all");
+                public void cancelled() {
+                    reportDone(reportType, label + " cancelled");
                 }
             });
-            
-            pdfReportsPanel.add(dailyReportBtn);
-            pdfReportsPanel.add(monthlyReportBtn);
-            pdfReportsPanel.add(allReportBtn);
-            
-            // Main panel layout - Existing analytics + NEW PDF reports
-            JPanel mainPanel = new JPanel(new BorderLayout(10, 10));
-            mainPanel.add(new JLabel("System Analytics", JLabel.CENTER), BorderLayout.NORTH);
-            mainPanel.add(scrollPane, BorderLayout.CENTER);
-            mainPanel.add(pdfReportsPanel, BorderLayout.SOUTH);
-            
-            panel.add(mainPanel, BorderLayout.CENTER);
-            
-        } catch (SQLException e) {
-            panel.add(new JLabel("Error loading analytics: " + e.getMessage(), JLabel.CENTER));
-        }
+        reportRequests.put(reportType, request);
+        reportProgressBar.setValue(0);
+        reportProgressBar.setString(label + ": queued");
+        cancelReportButton.setEnabled(true);
+    }
 
-        return panel;
+    private void reportDone(String reportType, String status) {
+        reportRequests.remove(reportType);
+        reportProgressBar.setValue(0);
+        reportProgressBar.setString(status);
+        cancelReportButton.setEnabled(!reportRequests.isEmpty());
     }
 
-    // PDF Report Generation Method
-    private void generatePDFReport(String reportType) {
-        PDFReportService pdfService = new PDFReportService();
-        pdfService.generateAppointmentReport(reportType);
+    private void cancelReports() {
+        for (ReportJobQueue.Request request : new ArrayList<>(reportRequests.values())) {
+            request.cancel();
+        }
     }
 
     private void loadUserData() {
-        try {
-            userTableModel.setRowCount(0);
-            Connection conn = DatabaseConnection.getConnection();
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery("SELECT user_id, username, name, email, role, status FROM users");
-            
-            while (rs.next()) {
-                userTableModel.addRow(new Object[]{
-                    rs.getString("user_id"),
-                    rs.getString("username"),
-                    rs.getString("name"),
-                    rs.getString("email"),
-                    rs.getString("role"),
-                    rs.getString("status")
-                });
-            }
-            
-            rs.close();
-            stmt.close();
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this, "Error loading users: " + e.getMessage());
-        }
+        userTableModel.reload();
     }
 
     private void loadAppointmentData() {
-        try {
-            appointmentTableModel.setRowCount(0);
-            Connection conn = DatabaseConnection.getConnection();
-            
-            // SIMPLE QUERY - Direct appointments table se
-            String query = "SELECT appointment_id, patient_id, doctor_id, " +
-                         "appointment_date, appointment_time, status, type " +
-                         "FROM appointments " +
-                         "ORDER BY appointment_date DESC";
-            
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery(query);
-            
-            while (rs.next()) {
-                // Patient aur Doctor names alag se fetch karein
-                String patientName = getPatientName(rs.getString("patient_id"));
-                String doctorName = getDoctorName(rs.getString("doctor_id"));
-                
-                appointmentTableModel.addRow(new Object[]{
-                    rs.getString("appointment_id"),
-                    patientName,
-                    doctorName,
-                    rs.getString("appointment_date"),
-                    rs.getString("appointment_time"),
-                    rs.getString("status"),
-                    rs.getString("type")
-                });
-            }
-            
-            rs.close();
-            stmt.close();
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this, 
-                "Error loading appointments: " + e.getMessage());
-            e.printStackTrace();
-        }
+        appointmentTableModel.reload();
     }
 
-    // HELPER METHOD FOR PATIENT NAME
-    private String getPatientName(String patientId) {
+    // HELPER METHOD FOR PATIENT NAME (name comes from the LEFT JOIN, may be missing)
+    private String getPatientName(String patientId, String joinedName) {
         if (patientId == null) return "Unknown Patient";
-        
-        try {
-            Connection conn = DatabaseConnection.getConnection();
-            String query = "SELECT name FROM patients WHERE patient_id = ?";
-            PreparedStatement pstmt = conn.prepareStatement(query);
-            pstmt.setString(1, patientId);
-            ResultSet rs = pstmt.executeQuery();
-            
-            if (rs.next()) {
-                return rs.getString("name");
-            }
-            rs.close();
-            pstmt.close();
-        } catch (SQLException e) {
-            System.out.println("Error getting patient name: " + e.getMessage());
-        }
+        if (joinedName != null) return joinedName;
         return "Patient: " + patientId; // Fallback
     }
 
     // HELPER METHOD FOR DOCTOR NAME  
-    private String getDoctorName(String doctorId) {
+    private String getDoctorName(String doctorId, String joinedName) {
         if (doctorId == null) return "Unknown Doctor";
-        
-        try {
-            Connection conn = DatabaseConnection.getConnection();
-            String query = "SELECT name FROM doctors WHERE doctor_id = ?";
-            PreparedStatement pstmt = conn.prepareStatement(query);
-            pstmt.setString(1, doctorId);
-            ResultSet rs = pstmt.executeQuery();
-            
-            if (rs.next()) {
-                return rs.getString("name");
-            }
-            rs.close();
-            pstmt.close();
-        } catch (SQLException e) {
-            System.out.println("Error getting doctor name: " + e.getMessage());
-        }
+        if (joinedName != null) return joinedName;
         return "Doctor: " + doctorId; // Fallback
     }
 
@@ -472,8 +519,7 @@ public class AdminDashboard extends JFrame {
                 return;
             }
 
-            try {
-                Connection conn = DatabaseConnection.getConnection();
+            try (Connection conn = DatabaseConnection.getConnection()) {
                 
                 // Check if username already exists
                 String checkQuery = "SELECT COUNT(*) FROM users WHERE username = ?";
@@ -490,7 +536,7 @@ public class AdminDashboard extends JFrame {
                 rs.close();
                 checkStmt.close();
 
-                String userId = "U" + String.format("%03d", getNextUserId());
+                String userId = IdAllocator.USERS.nextId();
                 
                 String query = "INSERT INTO users (user_id, username, password, role, name, email) VALUES (?, ?, ?, ?, ?, ?)";
                 PreparedStatement pstmt = conn.prepareStatement(query);
@@ -505,6 +551,8 @@ public class AdminDashboard extends JFrame {
                 pstmt.close();
                 
                 if (rowsAffected > 0) {
+                    DirectoryCache.invalidateUser(userId);
+                    DashboardMetricsService.invalidate();
                     JOptionPane.showMessageDialog(this, "User added successfully!\nUser ID: " + userId);
                     loadUserData();
                 } else {
@@ -518,26 +566,6 @@ public class AdminDashboard extends JFrame {
         }
     }
 
-    private int getNextUserId() {
-        try {
-            Connection conn = DatabaseConnection.getConnection();
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery("SELECT MAX(CAST(SUBSTRING(user_id, 2) AS UNSIGNED)) FROM users");
-            
-            int maxId = 0;
-            if (rs.next()) {
-                maxId = rs.getInt(1);
-            }
-            
-            rs.close();
-            stmt.close();
-            return maxId + 1;
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this, "Error getting next user ID: " + e.getMessage());
-            return 1; // Default fallback
-        }
-    }
-
     private void showEditUserDialog(JTable table) {
         int selectedRow = table.getSelectedRow();
         if (selectedRow == -1) {
@@ -550,6 +578,10 @@ public class AdminDashboard extends JFrame {
         String currentEmail = (String) table.getValueAt(selectedRow, 3);
         String currentRole = (String) table.getValueAt(selectedRow, 4);
         String currentStatus = (String) table.getValueAt(selectedRow, 5);
+        Object[] row = userTableModel.getRow(selectedRow);
+        if (row == null) return;
+        // The version this dialog was opened on; the UPDATE only applies if it is still current
+        long rowVersion = (Long) row[USER_ROW_VERSION_INDEX];
 
         JTextField nameField = new JTextField(currentName);
         JTextField emailField = new JTextField(currentEmail);
@@ -572,29 +604,38 @@ public class AdminDashboard extends JFrame {
             JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
 
         if (result == JOptionPane.OK_OPTION) {
-            try {
-                Connection conn = DatabaseConnection.getConnection();
-                String query = "UPDATE users SET name = ?, email = ?, role = ?, status = ? WHERE user_id = ?";
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                // Compare-and-set instead of a row lock: the trigger bumps row_version on every change
+                String query = "UPDATE users SET name = ?, email = ?, role = ?, status = ? " +
+                               "WHERE user_id = ? AND row_version = ?";
                 PreparedStatement pstmt = conn.prepareStatement(query);
                 pstmt.setString(1, nameField.getText().trim());
                 pstmt.setString(2, emailField.getText().trim());
                 pstmt.setString(3, (String) roleCombo.getSelectedItem());
                 pstmt.setString(4, (String) statusCombo.getSelectedItem());
                 pstmt.setString(5, userId);
+                pstmt.setLong(6, rowVersion);
                 
                 int rowsAffected = pstmt.executeUpdate();
                 pstmt.close();
                 
                 if (rowsAffected > 0) {
+                    DirectoryCache.invalidateUser(userId);
+                    DashboardMetricsService.invalidate();
+                    PDFReportService.reportDataChanged();
                     JOptionPane.showMessageDialog(this, "User updated successfully!");
-                    loadUserData();
                 } else {
-                    JOptionPane.showMessageDialog(this, "Failed to update user!");
+                    JOptionPane.showMessageDialog(this,
+                        "This user was changed or deleted by someone else while you were editing.\n" +
+                        "The row has been refreshed - please review it and edit again.",
+                        "Edit Conflict", JOptionPane.WARNING_MESSAGE);
                 }
                 
             } catch (SQLException e) {
                 JOptionPane.showMessageDialog(this, "Database Error: " + e.getMessage());
             }
+            // Re-read only this row, not the whole table
+            userTableModel.refreshRows("user_id", Collections.singleton(userId));
         }
     }
 
@@ -613,8 +654,7 @@ public class AdminDashboard extends JFrame {
             "Confirm Delete", JOptionPane.YES_NO_OPTION);
 
         if (confirm == JOptionPane.YES_OPTION) {
-            try {
-                Connection conn = DatabaseConnection.getConnection();
+            try (Connection conn = DatabaseConnection.getConnection()) {
                 
                 // Check if user has related records
                 String checkQuery = "SELECT COUNT(*) FROM doctors WHERE user_id = ? UNION ALL SELECT COUNT(*) FROM patients WHERE user_id = ?";
@@ -647,6 +687,9 @@ public class AdminDashboard extends JFrame {
                 pstmt.close();
                 
                 if (rowsAffected > 0) {
+                    DirectoryCache.invalidateUser(userId);
+                    DashboardMetricsService.invalidate();
+                    PDFReportService.reportDataChanged();
                     JOptionPane.showMessageDialog(this, "User deleted successfully!");
                     loadUserData();
                 } else {
@@ -690,55 +733,60 @@ public class AdminDashboard extends JFrame {
                 return;
             }
 
+            LocalDate date;
+            LocalTime time;
             try {
-                Connection conn = DatabaseConnection.getConnection();
-                
-                // Generate appointment ID
-                String appointmentId = "A" + String.format("%03d", getNextAppointmentId());
-                
-                String query = "INSERT INTO appointments (appointment_id, patient_id, doctor_id, appointment_date, appointment_time, type, status) VALUES (?, ?, ?, ?, ?, ?, 'Scheduled')";
-                PreparedStatement pstmt = conn.prepareStatement(query);
-                pstmt.setString(1, appointmentId);
-                pstmt.setString(2, patientIdField.getText().trim());
-                pstmt.setString(3, doctorIdField.getText().trim());
-                pstmt.setString(4, dateField.getText().trim());
-                pstmt.setString(5, timeField.getText().trim());
-                pstmt.setString(6, (String) typeCombo.getSelectedItem());
-                
-                int rowsAffected = pstmt.executeUpdate();
-                pstmt.close();
-                
-                if (rowsAffected > 0) {
-                    JOptionPane.showMessageDialog(this, "Appointment added successfully!\nAppointment ID: " + appointmentId);
+                date = LocalDate.parse(dateField.getText().trim());
+                time = LocalTime.parse(timeField.getText().trim());
+            } catch (DateTimeParseException e) {
+                JOptionPane.showMessageDialog(this, "Please enter the date as YYYY-MM-DD and the time as HH:MM:SS!");
+                return;
+            }
+
+            String patientId = patientIdField.getText().trim();
+            String doctorId = doctorIdField.getText().trim();
+            String type = (String) typeCombo.getSelectedItem();
+
+            // Ids are typed by hand: check them against the directory before booking, off the EDT
+            loader.submit("add-appointment", () -> {
+                NewAppointment appt = new NewAppointment();
+                appt.patientName = DirectoryCache.getPatientName(patientId);
+                appt.doctorName = DirectoryCache.getDoctorName(doctorId);
+                if (appt.patientName == null || appt.doctorName == null) return appt;
+                appt.appointmentId = IdAllocator.APPOINTMENTS.nextId();
+                try (Connection conn = DatabaseConnection.getConnection()) {
+                    // Same reserve-then-insert path as patient bookings, so the two cannot double-book a slot
+                    appt.booked = SlotAvailability.book(conn, appt.appointmentId, patientId, doctorId, date, time, type);
+                }
+                return appt;
+            }, appt -> {
+                if (appt.patientName == null) {
+                    JOptionPane.showMessageDialog(this, "No patient with ID " + patientId + "!");
+                } else if (appt.doctorName == null) {
+                    JOptionPane.showMessageDialog(this, "No doctor with ID " + doctorId + "!");
+                } else if (appt.booked) {
+                    DashboardMetricsService.invalidate();
+                    PDFReportService.reportDataChanged();
+                    JOptionPane.showMessageDialog(this, "Appointment added successfully!\n" +
+                        "Appointment ID: " + appt.appointmentId + "\n" +
+                        "Patient: " + appt.patientName + "\n" +
+                        "Doctor: " + appt.doctorName);
                     loadAppointmentData(); // Refresh the table
                 } else {
-                    JOptionPane.showMessageDialog(this, "Failed to add appointment!");
+                    JOptionPane.showMessageDialog(this, "That doctor already has an appointment at this time!");
                 }
-                
-            } catch (SQLException e) {
+            }, e -> {
                 JOptionPane.showMessageDialog(this, "Database Error: " + e.getMessage());
                 e.printStackTrace();
-            }
+            });
         }
     }
 
-    private int getNextAppointmentId() {
-        try {
-            Connection conn = DatabaseConnection.getConnection();
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery("SELECT MAX(CAST(SUBSTRING(appointment_id, 2) AS UNSIGNED)) FROM appointments");
-            
-            int maxId = 0;
-            if (rs.next()) {
-                maxId = rs.getInt(1);
-            }
-            
-            rs.close();
-            stmt.close();
-            return maxId + 1;
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this, "Error getting next appointment ID: " + e.getMessage());
-            return 1;
-        }
+    // Outcome of an add-appointment job, handed back to the EDT
+    private static class NewAppointment {
+        String patientName;   // null = unknown patient id, nothing was booked
+        String doctorName;    // null = unknown doctor id, nothing was booked
+        String appointmentId;
+        boolean booked;       // false = the slot was already taken
     }
 }
\ No newline at end of file
@@ -6,12 +6,15 @@ import org.jfree.data.category.DefaultCategoryDataset;
 import org.jfree.data.general.DefaultPieDataset;
 import javax.swing.*;
 import java.awt.*;
-import java.sql.*;
+import java.util.Map;
 
 public class AnalyticsChartsPanel extends JPanel {  // ✅ NAME CHANGE
     private JTabbedPane chartTabs;
+    private final DefaultCategoryDataset appointmentDataset = new DefaultCategoryDataset();
+    private final DefaultPieDataset userDataset = new DefaultPieDataset();
 
-    public AnalyticsChartsPanel() {  // ✅ CONSTRUCTOR NAME CHANGE
+    // Charts are built empty and filled in when the metrics snapshot arrives
+    public AnalyticsChartsPanel(BackgroundLoader loader) {  // ✅ CONSTRUCTOR NAME CHANGE
         setLayout(new BorderLayout());
         setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
         
@@ -20,76 +23,46 @@ public class AnalyticsChartsPanel extends JPanel {  // ✅ NAME CHANGE
         chartTabs.addTab("🥧 Users Distribution", createUserPieChart());
         
         add(chartTabs, BorderLayout.CENTER);
-    }
 
-    private JPanel createAppointmentChart() {
-        DefaultCategoryDataset dataset = new DefaultCategoryDataset();
-        
-        try {
-            Connection conn = DatabaseConnection.getConnection();
-            
-            // Appointment status count
-            String query = "SELECT status, COUNT(*) as count FROM appointments GROUP BY status";
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery(query);
-            
-            while (rs.next()) {
-                dataset.addValue(rs.getInt("count"), "Appointments", rs.getString("status"));
+        loader.submit("charts", DashboardMetricsService::getSnapshot, snapshot -> {
+            // Appointment status count (shared snapshot, no extra query)
+            for (Map.Entry<String, Integer> entry : snapshot.getAppointmentsByStatus().entrySet()) {
+                appointmentDataset.addValue(entry.getValue(), "Appointments", entry.getKey());
+            }
+            // User role distribution (shared snapshot, no extra query)
+            for (Map.Entry<String, Integer> entry : snapshot.getActiveUsersByRole().entrySet()) {
+                userDataset.setValue(entry.getKey(), entry.getValue());
             }
-            
-            rs.close();
-            stmt.close();
-            
-        } catch (SQLException e) {
+        }, e -> {
             e.printStackTrace();
             // Fallback data
-            dataset.addValue(5, "Appointments", "Scheduled");
-            dataset.addValue(3, "Appointments", "Confirmed"); 
-            dataset.addValue(1, "Appointments", "Completed");
-        }
-        
+            appointmentDataset.addValue(5, "Appointments", "Scheduled");
+            appointmentDataset.addValue(3, "Appointments", "Confirmed"); 
+            appointmentDataset.addValue(1, "Appointments", "Completed");
+            userDataset.setValue("Admin", 1);
+            userDataset.setValue("Doctor", 3);
+            userDataset.setValue("Patient", 3);
+        });
+    }
+
+    private JPanel createAppointmentChart() {
         JFreeChart chart = ChartFactory.createBarChart(
             "Appointments by Status",
             "Status", 
             "Number of Appointments",
-            dataset
+            appointmentDataset
         );
         
         return new ChartPanel(chart);  // ✅ JFreeChart's ChartPanel
     }
 
     private JPanel createUserPieChart() {
-        DefaultPieDataset dataset = new DefaultPieDataset();
-        
-        try {
-            Connection conn = DatabaseConnection.getConnection();
-            
-            // User role distribution
-            String query = "SELECT role, COUNT(*) as count FROM users WHERE status='Active' GROUP BY role";
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery(query);
-            
-            while (rs.next()) {
-                dataset.setValue(rs.getString("role"), rs.getInt("count"));
-            }
-            
-            rs.close();
-            stmt.close();
-            
-        } catch (SQLException e) {
-            e.printStackTrace();
-            // Fallback data
-            dataset.setValue("Admin", 1);
-            dataset.setValue("Doctor", 3);
-            dataset.setValue("Patient", 3);
-        }
-        
         JFreeChart chart = ChartFactory.createPieChart(
             "User Distribution by Role",
-            dataset,
+            userDataset,
             true, true, false
         );
         
         return new ChartPanel(chart);  // ✅ JFreeChart's ChartPanel
     }
-}
\ No newline at end of file
+}
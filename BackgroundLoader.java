@@ -0,0 +1,212 @@
+// BackgroundLoader.java - Runs dashboard queries off the Swing EDT
+import javax.swing.SwingUtilities;
+import javax.swing.table.DefaultTableModel;
+import java.awt.Window;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+/*
+  One loader per window. Work runs on a small shared worker pool; results
+  are applied on the EDT.
+  - Jobs are keyed: asking for "users" while "users" is still loading does
+    not start a second query, it schedules exactly one re-run afterwards.
+  - Closing the owner window cancels everything it started.
+  - loadRows() streams rows into a DefaultTableModel in batches, so the EDT
+    gets one task per batch instead of one per row.
+*/
+public class BackgroundLoader {
+    private static final int WORKER_THREADS = Integer.getInteger("hms.loaderThreads", 4);
+    private static final int QUEUE_CAPACITY = 64;
+    private static final int PUBLISH_BATCH_SIZE = 250;
+
+    // Bounded: a few workers (well under the connection pool size) and a bounded queue
+    private static final ExecutorService EXECUTOR = new ThreadPoolExecutor(
+        WORKER_THREADS, WORKER_THREADS, 30, TimeUnit.SECONDS,
+        new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+        r -> {
+            Thread t = new Thread(r, "Dashboard-Loader");
+            t.setDaemon(true);
+            return t;
+        });
+
+    public interface Query<T> {
+        T call() throws Exception;
+    }
+
+    public interface RowQuery {
+        void run(Connection conn, RowSink sink) throws SQLException;
+    }
+
+    public interface RowSink {
+        // Returns false once the load was cancelled so the query can stop early
+        boolean add(Object[] row);
+    }
+
+    private final Map<String, Job> jobs = new HashMap<>();
+    private boolean closed = false;
+
+    public BackgroundLoader(Window owner) {
+        if (owner != null) {
+            owner.addWindowListener(new WindowAdapter() {
+                @Override
+                public void windowClosed(WindowEvent e) {
+                    close();
+                }
+            });
+        }
+    }
+
+    // Runs query in the background and hands the result to onSuccess on the EDT
+    public <T> void submit(String key, Query<T> query, Consumer<T> onSuccess, Consumer<Exception> onError) {
+        schedule(key, job -> {
+            try {
+                T result = query.call();
+                onEdt(job, () -> onSuccess.accept(result));
+            } catch (Exception e) {
+                onEdt(job, () -> onError.accept(e));
+            }
+        }, onError);
+    }
+
+    // Replaces the model's rows with whatever query produces, publishing in batches
+    public void loadRows(String key, DefaultTableModel model, RowQuery query, Consumer<Exception> onError) {
+        loadRows(key, model, query, onError, null);
+    }
+
+    public void loadRows(String key, DefaultTableModel model, RowQuery query,
+                         Consumer<Exception> onError, Runnable onDone) {
+        schedule(key, job -> {
+            BatchingSink sink = new BatchingSink(job, model);
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                if (conn == null) throw new SQLException("No database connection available");
+                query.run(conn, sink);
+                sink.finish();
+                if (onDone != null) onEdt(job, onDone);
+            } catch (Exception e) {
+                onEdt(job, () -> onError.accept(e));
+            }
+        }, onError);
+    }
+
+    public synchronized void cancel(String key) {
+        Job job = jobs.remove(key);
+        if (job != null) job.cancel();
+    }
+
+    public synchronized void close() {
+        closed = true;
+        for (Job job : jobs.values()) {
+            job.cancel();
+        }
+        jobs.clear();
+    }
+
+    // Every scheduled job ends in work's own callbacks, or in onError if the pool refuses it
+    private synchronized void schedule(String key, Consumer<Job> work, Consumer<Exception> onError) {
+        if (closed) return;
+
+        Job running = jobs.get(key);
+        if (running != null) {
+            // Coalesce: remember only the latest request and run it when the current one ends
+            running.rerun = work;
+            running.rerunOnError = onError;
+            return;
+        }
+
+        Job job = new Job(key);
+        jobs.put(key, job);
+        try {
+            job.future = EXECUTOR.submit(() -> {
+                try {
+                    if (!job.cancelled) work.accept(job);
+                } finally {
+                    finished(job);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            jobs.remove(key);
+            System.out.println("Loader queue full, dropped refresh of " + key);
+            // Callers wait for a callback (e.g. PagedTableModel's pending pages), so report it
+            Exception busy = new IllegalStateException("Too many loads queued - please try again", e);
+            onEdt(job, () -> onError.accept(busy));
+        }
+    }
+
+    private synchronized void finished(Job job) {
+        if (jobs.get(job.key) != job) return;
+        jobs.remove(job.key);
+        if (job.rerun != null && !job.cancelled) {
+            schedule(job.key, job.rerun, job.rerunOnError);
+        }
+    }
+
+    private static void onEdt(Job job, Runnable action) {
+        if (job.cancelled) return;
+        SwingUtilities.invokeLater(() -> {
+            if (!job.cancelled) action.run();
+        });
+    }
+
+    private static class Job {
+        final String key;
+        volatile boolean cancelled = false;
+        volatile Future<?> future;
+        Consumer<Job> rerun;
+        Consumer<Exception> rerunOnError;
+
+        Job(String key) {
+            this.key = key;
+        }
+
+        void cancel() {
+            cancelled = true;
+            rerun = null;
+            rerunOnError = null;
+            Future<?> f = future;
+            if (f != null) f.cancel(true);
+        }
+    }
+
+    private static class BatchingSink implements RowSink {
+        private final Job job;
+        private final DefaultTableModel model;
+        private List<Object[]> buffer = new ArrayList<>(PUBLISH_BATCH_SIZE);
+        private boolean firstBatch = true;
+
+        BatchingSink(Job job, DefaultTableModel model) {
+            this.job = job;
+            this.model = model;
+        }
+
+        @Override
+        public boolean add(Object[] row) {
+            if (job.cancelled) return false;
+            buffer.add(row);
+            if (buffer.size() >= PUBLISH_BATCH_SIZE) flush();
+            return !job.cancelled;
+        }
+
+        void finish() {
+            // Always flush once so an empty result still clears the old rows
+            if (!buffer.isEmpty() || firstBatch) flush();
+        }
+
+        private void flush() {
+            final List<Object[]> batch = buffer;
+            final boolean clearFirst = firstBatch;
+            buffer = new ArrayList<>(PUBLISH_BATCH_SIZE);
+            firstBatch = false;
+            onEdt(job, () -> {
+                // Old rows stay visible until the first new batch arrives
+                if (clearFirst) model.setRowCount(0);
+                for (Object[] row : batch) {
+                    model.addRow(row);
+                }
+            });
+        }
+    }
+}
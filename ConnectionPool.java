@@ -0,0 +1,388 @@
+// ConnectionPool.java - Bounded JDBC connection pool used by DatabaseConnection
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/*
+  Callers borrow with getConnection() and MUST close what they borrow
+  (try-with-resources). close() on a borrowed connection hands the physical
+  connection back to the pool instead of closing the socket.
+  prepareStatement(sql) is served from a per-connection StatementCache.
+*/
+public class ConnectionPool {
+    // Borrow latency histogram upper bounds in milliseconds (last bucket is open-ended)
+    private static final long[] LATENCY_BUCKETS_MS = {1, 5, 10, 50, 100, 500, 1000, 5000};
+    private static final long HOUSEKEEPING_INTERVAL_MS = 30_000;
+    private static final long VALIDATE_AFTER_IDLE_MS = 5_000;
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private final String url;
+    private final String username;
+    private final String password;
+    private final int minSize;
+    private final int maxSize;
+    private final long borrowTimeoutMillis;
+    private final long idleTimeoutMillis;
+    private final long leakThresholdMillis;
+    private final int statementCacheSize;
+
+    // Most recently returned connection sits at the head so warm sockets are reused first
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final Set<PooledConnection> active = ConcurrentHashMap.newKeySet();
+    private final Semaphore permits;
+    private final AtomicInteger waiters = new AtomicInteger();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong destroyed = new AtomicLong();
+    private final AtomicLong borrowTimeouts = new AtomicLong();
+    private final AtomicLongArray latencyHistogram = new AtomicLongArray(LATENCY_BUCKETS_MS.length + 1);
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean shutdown = false;
+
+    public ConnectionPool(String url, String username, String password, int minSize, int maxSize,
+                          long borrowTimeoutMillis, long idleTimeoutMillis, long leakThresholdMillis,
+                          int statementCacheSize) {
+        if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+        }
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.leakThresholdMillis = leakThresholdMillis;
+        this.statementCacheSize = statementCacheSize;
+        this.permits = new Semaphore(maxSize, true);
+
+        housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "DB-Pool-Housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        housekeeper.scheduleWithFixedDelay(this::housekeep,
+            HOUSEKEEPING_INTERVAL_MS, HOUSEKEEPING_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    // Open the minimum number of connections up front (fails fast if DB is down)
+    public void warmUp() throws SQLException {
+        while (idle.size() + active.size() < minSize) {
+            idle.offerLast(openPhysical());
+        }
+    }
+
+    public Connection getConnection() throws SQLException {
+        if (shutdown) throw new SQLException("Connection pool has been shut down");
+
+        long start = System.nanoTime();
+        waiters.incrementAndGet();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        } finally {
+            waiters.decrementAndGet();
+        }
+        if (!acquired) {
+            borrowTimeouts.incrementAndGet();
+            throw new SQLTimeoutException("Timed out after " + borrowTimeoutMillis +
+                " ms waiting for a database connection (active=" + active.size() + ", max=" + maxSize + ")");
+        }
+
+        try {
+            PooledConnection pooled = takeValidIdle();
+            if (pooled == null) pooled = openPhysical();
+
+            pooled.borrowedAt = System.currentTimeMillis();
+            pooled.borrowSite = new Throwable("Connection borrowed here");
+            pooled.leakReported = false;
+            active.add(pooled);
+            recordLatency(System.nanoTime() - start);
+            return pooled.lease();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private PooledConnection takeValidIdle() {
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            // Validate on borrow, but skip the round trip for connections that were just returned
+            if (System.currentTimeMillis() - pooled.lastReturned < VALIDATE_AFTER_IDLE_MS) {
+                return pooled;
+            }
+            try {
+                if (pooled.physical.isValid(VALIDATION_TIMEOUT_SECONDS)) return pooled;
+            } catch (SQLException ignored) {
+            }
+            destroy(pooled);
+        }
+        return null;
+    }
+
+    private PooledConnection openPhysical() throws SQLException {
+        Connection physical = DriverManager.getConnection(url, username, password);
+        created.incrementAndGet();
+        return new PooledConnection(physical, new StatementCache(physical, statementCacheSize));
+    }
+
+    private void release(PooledConnection pooled) {
+        active.remove(pooled);
+        pooled.statements.returnAll();
+        try {
+            // Reset any session state the borrower changed before handing it to someone else
+            if (!pooled.physical.getAutoCommit()) {
+                pooled.physical.rollback();
+                pooled.physical.setAutoCommit(true);
+            }
+            pooled.physical.clearWarnings();
+            pooled.lastReturned = System.currentTimeMillis();
+            if (shutdown) {
+                destroy(pooled);
+            } else {
+                idle.offerFirst(pooled);
+            }
+        } catch (SQLException e) {
+            destroy(pooled);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void destroy(PooledConnection pooled) {
+        destroyed.incrementAndGet();
+        pooled.statements.closeAll();
+        try {
+            pooled.physical.close();
+        } catch (SQLException ignored) {
+        }
+    }
+
+    private void housekeep() {
+        long now = System.currentTimeMillis();
+
+        // Idle eviction: drop the oldest idle connections, but never go below minSize
+        Iterator<PooledConnection> it = idle.descendingIterator();
+        while (it.hasNext() && idle.size() + active.size() > minSize) {
+            PooledConnection pooled = it.next();
+            if (now - pooled.lastReturned > idleTimeoutMillis && idle.remove(pooled)) {
+                destroy(pooled);
+            }
+        }
+
+        // Leak detection: report each long-held connection once, with the borrow stack trace
+        for (PooledConnection pooled : active) {
+            if (!pooled.leakReported && now - pooled.borrowedAt > leakThresholdMillis) {
+                pooled.leakReported = true;
+                System.out.println("⚠️ Possible connection leak: held for " +
+                    (now - pooled.borrowedAt) + " ms without close()");
+                pooled.borrowSite.printStackTrace(System.out);
+            }
+        }
+
+        try {
+            if (!shutdown) warmUp();
+        } catch (SQLException e) {
+            System.out.println("Pool top-up failed: " + e.getMessage());
+        }
+    }
+
+    private void recordLatency(long nanos) {
+        long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+        int bucket = 0;
+        while (bucket < LATENCY_BUCKETS_MS.length && millis > LATENCY_BUCKETS_MS[bucket]) {
+            bucket++;
+        }
+        latencyHistogram.incrementAndGet(bucket);
+    }
+
+    public void shutdown() {
+        shutdown = true;
+        housekeeper.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            destroy(pooled);
+        }
+        // Active connections are closed as their borrowers return them
+    }
+
+    public Stats getStats() {
+        long[] histogram = new long[latencyHistogram.length()];
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] = latencyHistogram.get(i);
+        }
+        return new Stats(active.size(), idle.size(), waiters.get(), maxSize,
+            created.get(), destroyed.get(), borrowTimeouts.get(), histogram,
+            StatementCache.getHits(), StatementCache.getMisses(), StatementCache.getEvictions());
+    }
+
+    // Immutable point-in-time view of the pool
+    public static class Stats {
+        private final int active;
+        private final int idle;
+        private final int waiters;
+        private final int maxSize;
+        private final long created;
+        private final long destroyed;
+        private final long borrowTimeouts;
+        private final long[] borrowLatencyHistogram;
+        private final long statementCacheHits;
+        private final long statementCacheMisses;
+        private final long statementCacheEvictions;
+
+        Stats(int active, int idle, int waiters, int maxSize, long created, long destroyed,
+              long borrowTimeouts, long[] borrowLatencyHistogram,
+              long statementCacheHits, long statementCacheMisses, long statementCacheEvictions) {
+            this.active = active;
+            this.idle = idle;
+            this.waiters = waiters;
+            this.maxSize = maxSize;
+            this.created = created;
+            this.destroyed = destroyed;
+            this.borrowTimeouts = borrowTimeouts;
+            this.borrowLatencyHistogram = borrowLatencyHistogram;
+            this.statementCacheHits = statementCacheHits;
+            this.statementCacheMisses = statementCacheMisses;
+            this.statementCacheEvictions = statementCacheEvictions;
+        }
+
+        public int getActive() { return active; }
+        public int getIdle() { return idle; }
+        public int getWaiters() { return waiters; }
+        public int getMaxSize() { return maxSize; }
+        public long getCreated() { return created; }
+        public long getDestroyed() { return destroyed; }
+        public long getBorrowTimeouts() { return borrowTimeouts; }
+
+        // Upper bound (ms) of each histogram bucket; the extra last bucket counts everything slower
+        public long[] getLatencyBucketBoundsMillis() { return LATENCY_BUCKETS_MS.clone(); }
+        public long[] getBorrowLatencyHistogram() { return borrowLatencyHistogram.clone(); }
+
+        public long getStatementCacheHits() { return statementCacheHits; }
+        public long getStatementCacheMisses() { return statementCacheMisses; }
+        public long getStatementCacheEvictions() { return statementCacheEvictions; }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append("active=").append(active)
+              .append(", idle=").append(idle)
+              .append(", waiters=").append(waiters)
+              .append(", max=").append(maxSize)
+              .append(", created=").append(created)
+              .append(", destroyed=").append(destroyed)
+              .append(", timeouts=").append(borrowTimeouts)
+              .append(", borrowLatency={");
+            for (int i = 0; i < borrowLatencyHistogram.length; i++) {
+                if (i > 0) sb.append(", ");
+                sb.append(i < LATENCY_BUCKETS_MS.length ? "<=" + LATENCY_BUCKETS_MS[i] : ">" + LATENCY_BUCKETS_MS[i - 1])
+                  .append("ms:").append(borrowLatencyHistogram[i]);
+            }
+            return sb.append("}, statementCache={hits=").append(statementCacheHits)
+                     .append(", misses=").append(statementCacheMisses)
+                     .append(", evictions=").append(statementCacheEvictions)
+                     .append("}").toString();
+        }
+    }
+
+    // One physical connection plus the bookkeeping the pool needs for it
+    private class PooledConnection {
+        final Connection physical;
+        final StatementCache statements;
+        volatile long borrowedAt;
+        volatile long lastReturned = System.currentTimeMillis();
+        volatile Throwable borrowSite;
+        volatile boolean leakReported;
+
+        PooledConnection(Connection physical, StatementCache statements) {
+            this.physical = physical;
+            this.statements = statements;
+        }
+
+        // Each borrow gets its own proxy so a stale reference can't close someone else's lease
+        Connection lease() {
+            return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new LeaseHandler(this));
+        }
+    }
+
+    private class LeaseHandler implements InvocationHandler {
+        private final PooledConnection pooled;
+        private final AtomicBoolean closed = new AtomicBoolean(false);
+        // Uncached statements opened through this lease, closed on return so cursors don't leak
+        private final List<Statement> uncached = new ArrayList<>();
+
+        LeaseHandler(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (closed.compareAndSet(false, true)) {
+                        closeUncached();
+                        release(pooled);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed.get() || pooled.physical.isClosed();
+                case "prepareStatement":
+                    if (closed.get()) throw new SQLException("Connection has already been returned to the pool");
+                    if (args.length == 1) {
+                        PreparedStatement cached = pooled.statements.prepare((String) args[0]);
+                        if (cached != null) return cached;
+                    }
+                    return track(invokePhysical(method, args));
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + pooled.physical + (closed.get() ? ", returned" : "") + "]";
+                default:
+                    if (closed.get()) throw new SQLException("Connection has already been returned to the pool");
+                    return track(invokePhysical(method, args));
+            }
+        }
+
+        private Object invokePhysical(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(pooled.physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        private Object track(Object result) {
+            if (result instanceof Statement) {
+                synchronized (uncached) {
+                    uncached.add((Statement) result);
+                }
+            }
+            return result;
+        }
+
+        private void closeUncached() {
+            synchronized (uncached) {
+                for (Statement stmt : uncached) {
+                    try {
+                        stmt.close();
+                    } catch (SQLException ignored) {
+                    }
+                }
+                uncached.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+// DashboardMetricsService.java - Admin KPIs computed in one round trip and cached with a TTL
+import java.sql.*;
+import java.util.*;
+
+/*
+  The analytics table and both charts read the same Snapshot, so opening the
+  admin window costs one aggregate query instead of eight table scans.
+  Screens that change users or appointments call invalidate() so the next
+  reader sees fresh numbers.
+*/
+public class DashboardMetricsService {
+    private static final long TTL_MS = Long.getLong("hms.metricsTtlMs", 30_000L);
+
+    // Both GROUP BYs go out as one statement; the first column tells the rows apart
+    private static final String METRICS_QUERY =
+        "SELECT 'U' as source, role as k1, status as k2, COUNT(*) as total, 0 as today " +
+        "FROM users GROUP BY role, status " +
+        "UNION ALL " +
+        "SELECT 'A', status, NULL, COUNT(*), " +
+        "SUM(CASE WHEN appointment_date >= CURDATE() AND appointment_date < CURDATE() + INTERVAL 1 DAY " +
+        "THEN 1 ELSE 0 END) " +
+        "FROM appointments GROUP BY status";
+
+    private static Snapshot cached = null;
+
+    public static synchronized Snapshot getSnapshot() throws SQLException {
+        if (cached == null || System.currentTimeMillis() - cached.loadedAt > TTL_MS) {
+            cached = load();
+        }
+        return cached;
+    }
+
+    public static synchronized void invalidate() {
+        cached = null;
+    }
+
+    private static Snapshot load() throws SQLException {
+        Snapshot s = new Snapshot();
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            if (conn == null) throw new SQLException("No database connection available");
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery(METRICS_QUERY)) {
+                while (rs.next()) {
+                    String k1 = rs.getString("k1");
+                    int total = rs.getInt("total");
+                    if ("U".equals(rs.getString("source"))) {
+                        String status = rs.getString("k2");
+                        s.totalUsers += total;
+                        if ("Active".equals(status)) {
+                            s.activeUsersByRole.merge(k1, total, Integer::sum);
+                        }
+                    } else {
+                        s.totalAppointments += total;
+                        s.todaysAppointments += rs.getInt("today");
+                        s.appointmentsByStatus.merge(k1, total, Integer::sum);
+                    }
+                }
+            }
+        }
+        s.activeDoctors = s.activeUsersByRole.getOrDefault("Doctor", 0);
+        s.activePatients = s.activeUsersByRole.getOrDefault("Patient", 0);
+        s.pendingAppointments = s.appointmentsByStatus.getOrDefault("Scheduled", 0);
+        s.loadedAt = System.currentTimeMillis();
+        return s;
+    }
+
+    // Read-only once published
+    public static class Snapshot {
+        private int totalUsers;
+        private int activeDoctors;
+        private int activePatients;
+        private int totalAppointments;
+        private int pendingAppointments;
+        private int todaysAppointments;
+        private final Map<String, Integer> appointmentsByStatus = new LinkedHashMap<>();
+        private final Map<String, Integer> activeUsersByRole = new LinkedHashMap<>();
+        private long loadedAt;
+
+        public int getTotalUsers() { return totalUsers; }
+        public int getActiveDoctors() { return activeDoctors; }
+        public int getActivePatients() { return activePatients; }
+        public int getTotalAppointments() { return totalAppointments; }
+        public int getPendingAppointments() { return pendingAppointments; }
+        public int getTodaysAppointments() { return todaysAppointments; }
+        public Map<String, Integer> getAppointmentsByStatus() { return Collections.unmodifiableMap(appointmentsByStatus); }
+        public Map<String, Integer> getActiveUsersByRole() { return Collections.unmodifiableMap(activeUsersByRole); }
+        public long getLoadedAt() { return loadedAt; }
+    }
+}
@@ -1,57 +1,98 @@
 // DatabaseConnection.java
 import java.sql.*;
-import javax.swing.JOptionPane;
 
 public class DatabaseConnection {
-    private static final String URL = "jdbc:mysql://localhost:3306/healthcare_management";
+    // useServerPrepStmts so cached PreparedStatements keep their server-side handles
+    private static final String URL = "jdbc:mysql://localhost:3306/healthcare_management?useServerPrepStmts=true";
     private static final String USERNAME = "root";
     private static final String PASSWORD = "";
-    
-    private static Connection connection = null;
 
-    public static Connection getConnection() {
+    // Pool sizing - dashboards, LF refresher and reports each borrow their own connection
+    private static final int MIN_POOL_SIZE = 2;
+    private static final int MAX_POOL_SIZE = 10;
+    private static final long BORROW_TIMEOUT_MS = 10_000;
+    private static final long IDLE_TIMEOUT_MS = 5 * 60_000;
+    private static final long LEAK_THRESHOLD_MS = 60_000;
+    // Prepared statements kept open per pooled connection (override with -Dhms.statementCacheSize=N)
+    private static final int STATEMENT_CACHE_SIZE = Integer.getInteger("hms.statementCacheSize", 64);
+
+    private static ConnectionPool pool = null;
+
+    // Returns a pooled connection. Callers must close() it (try-with-resources) to give it back.
+    // Throws instead of showing a dialog: this runs on worker threads, and the caller's
+    // error handler (on the EDT) is the one that tells the user.
+    public static Connection getConnection() throws SQLException {
         try {
-            if (connection == null || connection.isClosed()) {
-                Class.forName("com.mysql.cj.jdbc.Driver");
-                connection = DriverManager.getConnection(URL, USERNAME, PASSWORD);
-                System.out.println("✅ Database connected successfully!");
-                
-                // Test query
-                Statement stmt = connection.createStatement();
-                ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM users");
+            return getPool().getConnection();
+        } catch (SQLException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new SQLException("Database connection failed: " + e.getMessage(), e);
+        }
+    }
+
+    private static synchronized ConnectionPool getPool() throws Exception {
+        if (pool == null) {
+            Class.forName("com.mysql.cj.jdbc.Driver");
+            ConnectionPool newPool = new ConnectionPool(URL, USERNAME, PASSWORD,
+                MIN_POOL_SIZE, MAX_POOL_SIZE, BORROW_TIMEOUT_MS, IDLE_TIMEOUT_MS, LEAK_THRESHOLD_MS,
+                STATEMENT_CACHE_SIZE);
+            try {
+                newPool.warmUp();
+                // Tables, columns and indexes are in place before anyone else gets a connection
+                try (Connection conn = newPool.getConnection()) {
+                    SchemaMigrator.migrate(conn);
+                }
+            } catch (SQLException e) {
+                newPool.shutdown();
+                throw e;
+            }
+            pool = newPool;
+            System.out.println("✅ Database connected successfully!");
+
+            // Test query (runs once per pool, not once per reconnect)
+            try (Connection conn = pool.getConnection();
+                 Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM users")) {
                 if (rs.next()) {
                     System.out.println("📊 Total users in database: " + rs.getInt(1));
                 }
-                rs.close();
-                stmt.close();
             }
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(null, 
-                "❌ Database Connection Failed!\n\nError: " + e.getMessage(),
-                "Database Error", JOptionPane.ERROR_MESSAGE);
-            e.printStackTrace();
         }
-        return connection;
+        return pool;
     }
 
-    public static void closeConnection() {
-        try {
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
-                System.out.println("Database connection closed.");
+    // Snapshot of pool usage (active, idle, waiters, borrow latency histogram, statement cache hits/misses)
+    public static synchronized ConnectionPool.Stats getPoolStats() {
+        return pool == null ? null : pool.getStats();
+    }
+
+    public static synchronized void closeConnection() {
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+            System.out.println("Database connection pool closed.");
+        }
+    }
+
+    // Used by SchemaMigrator to make column migrations re-runnable
+    public static boolean columnExists(Connection conn, String table, String column) throws SQLException {
+        String query = "SELECT COUNT(*) FROM information_schema.COLUMNS " +
+                       "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND COLUMN_NAME = ?";
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setString(1, table);
+            pstmt.setString(2, column);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() && rs.getInt(1) > 0;
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
         }
     }
 
     // Test if we can execute updates
     public static boolean testUpdate() {
-        try {
-            Connection conn = getConnection();
-            Statement stmt = conn.createStatement();
+        try (Connection conn = getConnection();
+             Statement stmt = conn.createStatement()) {
             int result = stmt.executeUpdate("UPDATE users SET name=name WHERE user_id='U001'");
-            stmt.close();
             System.out.println("✅ Update test successful! Rows affected: " + result);
             return true;
         } catch (SQLException e) {
@@ -59,4 +100,4 @@ public class DatabaseConnection {
             return false;
         }
     }
-}
\ No newline at end of file
+}
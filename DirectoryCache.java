@@ -0,0 +1,177 @@
+// DirectoryCache.java - Process-wide cache of doctor/patient display names
+import java.sql.*;
+import java.util.*;
+
+/*
+  Doctors are few, so the whole list is loaded once. Patients can number in
+  the hundreds of thousands, so they are loaded on demand into a bounded
+  LRU map. Table screens still take names from their own JOINs; this is for
+  ids typed in by hand, such as in the admin's New Appointment dialog.
+  Writes to users go through invalidateUser(); only the affected entries are
+  reloaded, on next access.
+*/
+public class DirectoryCache {
+    // Maximum cached patients (override with -Dhms.patientCacheSize=N)
+    private static final int MAX_PATIENTS = Integer.getInteger("hms.patientCacheSize", 10_000);
+    // Keep IN (...) lists to a sane length
+    private static final int BULK_BATCH_SIZE = 500;
+
+    private static final String DOCTOR_QUERY =
+        "SELECT d.doctor_id, d.user_id, u.name FROM doctors d JOIN users u ON d.user_id = u.user_id";
+    private static final String PATIENT_QUERY =
+        "SELECT p.patient_id, p.user_id, u.name FROM patients p JOIN users u ON p.user_id = u.user_id";
+
+    private static boolean doctorsLoaded = false;
+    private static final Map<String, DirectoryEntry> doctorsById = new LinkedHashMap<>();
+    private static final Map<String, String> doctorIdsByName = new HashMap<>();
+
+    private static final LinkedHashMap<String, DirectoryEntry> patientsById =
+        new LinkedHashMap<String, DirectoryEntry>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, DirectoryEntry> eldest) {
+                return size() > MAX_PATIENTS;
+            }
+        };
+
+    // user_ids edited since the last read; their doctor rows are re-read lazily
+    private static final Set<String> staleDoctorUsers = new HashSet<>();
+
+    private static class DirectoryEntry {
+        final String userId;
+        final String name;
+
+        DirectoryEntry(String userId, String name) {
+            this.userId = userId;
+            this.name = name;
+        }
+    }
+
+    // ---------------- Doctors ----------------
+
+    public static synchronized String getDoctorName(String doctorId) {
+        ensureDoctorsFresh();
+        DirectoryEntry entry = doctorsById.get(doctorId);
+        return entry == null ? null : entry.name;
+    }
+
+    public static synchronized String getDoctorId(String doctorName) {
+        ensureDoctorsFresh();
+        return doctorIdsByName.get(doctorName);
+    }
+
+    // Display names of all doctors, in the order the database returned them
+    public static synchronized List<String> getDoctorNames() {
+        ensureDoctorsFresh();
+        List<String> names = new ArrayList<>();
+        for (DirectoryEntry entry : doctorsById.values()) {
+            names.add(entry.name);
+        }
+        return names;
+    }
+
+    private static void ensureDoctorsFresh() {
+        if (!doctorsLoaded) {
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                if (conn == null) throw new SQLException("No database connection available");
+                try (Statement stmt = conn.createStatement();
+                     ResultSet rs = stmt.executeQuery(DOCTOR_QUERY)) {
+                    doctorsById.clear();
+                    doctorIdsByName.clear();
+                    while (rs.next()) {
+                        putDoctor(rs.getString("doctor_id"), rs.getString("user_id"), rs.getString("name"));
+                    }
+                    doctorsLoaded = true;
+                    staleDoctorUsers.clear();
+                }
+            } catch (SQLException e) {
+                System.out.println("Error loading doctor directory: " + e.getMessage());
+            }
+            return;
+        }
+        if (staleDoctorUsers.isEmpty()) return;
+
+        // Incremental refresh: drop and re-read only the edited doctors
+        List<String> userIds = new ArrayList<>(staleDoctorUsers);
+        doctorsById.values().removeIf(entry -> staleDoctorUsers.contains(entry.userId));
+        doctorIdsByName.values().removeIf(id -> !doctorsById.containsKey(id));
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            if (conn == null) throw new SQLException("No database connection available");
+            for (List<String> batch : batches(userIds)) {
+                String query = DOCTOR_QUERY + " WHERE d.user_id IN (" + placeholders(batch.size()) + ")";
+                try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+                    bind(pstmt, batch);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            putDoctor(rs.getString("doctor_id"), rs.getString("user_id"), rs.getString("name"));
+                        }
+                    }
+                }
+            }
+            staleDoctorUsers.clear();
+        } catch (SQLException e) {
+            // Fall back to a full reload next time
+            doctorsLoaded = false;
+            System.out.println("Error refreshing doctor directory: " + e.getMessage());
+        }
+    }
+
+    private static void putDoctor(String doctorId, String userId, String name) {
+        doctorsById.put(doctorId, new DirectoryEntry(userId, name));
+        if (name != null) doctorIdsByName.put(name, doctorId);
+    }
+
+    // ---------------- Patients ----------------
+
+    // null when there is no such patient; misses are read one at a time and then kept
+    public static synchronized String getPatientName(String patientId) throws SQLException {
+        if (patientId == null) return null;
+        DirectoryEntry entry = patientsById.get(patientId);
+        if (entry != null) return entry.name;
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            if (conn == null) throw new SQLException("No database connection available");
+            try (PreparedStatement pstmt = conn.prepareStatement(PATIENT_QUERY + " WHERE p.patient_id = ?")) {
+                pstmt.setString(1, patientId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (!rs.next()) return null;
+                    String name = rs.getString("name");
+                    patientsById.put(patientId, new DirectoryEntry(rs.getString("user_id"), name));
+                    return name;
+                }
+            }
+        }
+    }
+
+    // ---------------- Invalidation ----------------
+
+    // Call after any insert/update/delete on users
+    public static synchronized void invalidateUser(String userId) {
+        if (userId == null) return;
+        if (doctorsLoaded) staleDoctorUsers.add(userId);
+        patientsById.values().removeIf(entry -> userId.equals(entry.userId));
+    }
+
+    // ---------------- Helpers ----------------
+
+    private static List<List<String>> batches(List<String> ids) {
+        List<List<String>> batches = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += BULK_BATCH_SIZE) {
+            batches.add(ids.subList(i, Math.min(ids.size(), i + BULK_BATCH_SIZE)));
+        }
+        return batches;
+    }
+
+    private static String placeholders(int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sb.append(i == 0 ? "?" : ", ?");
+        }
+        return sb.toString();
+    }
+
+    private static void bind(PreparedStatement pstmt, List<String> values) throws SQLException {
+        for (int i = 0; i < values.size(); i++) {
+            pstmt.setString(i + 1, values.get(i));
+        }
+    }
+}
@@ -1,12 +1,12 @@
 public class Doctor extends User {
 
-    public Doctor(String username) {
-        super(username);
+    public Doctor(Session session) {
+        super(session);
     }
 
     @Override
     public void openDashboard() {
         System.out.println("Opening Doctor Dashboard for: " + username);
-        new DoctorDashboard().setVisible(true);
+        new DoctorDashboard(session).setVisible(true);
     }
 }
@@ -4,13 +4,19 @@ import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.*;
 import java.sql.*;
+import java.time.LocalDate;
+import java.time.Period;
 
 public class DoctorDashboard extends JFrame {
     private JTabbedPane tabbedPane;
-    private DefaultTableModel patientTableModel;
+    private PagedTableModel patientTableModel;
     private JButton themeToggleButton; // NEW: Theme toggle button
+    // All JDBC for this window runs here, never on the EDT; cancelled when the window closes
+    private final BackgroundLoader loader = new BackgroundLoader(this);
+    private final Session session;
 
-    public DoctorDashboard() {
+    public DoctorDashboard(Session session) {
+        this.session = session;
         setupUI();
         loadPatientData();
     }
@@ -120,9 +126,22 @@ tabbedPane.addTab("Appointments", createAppointmentsPanel());
         panel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
 
         String[] columns = {"Patient ID", "Name", "Age", "Last Visit", "Condition", "Actions"};
-        patientTableModel = new DefaultTableModel(columns, 0) {
-            public boolean isCellEditable(int row, int column) { return false; }
-        };
+        // Read from the patient_summary projection (kept current by triggers, see SchemaMigrator):
+        // one primary-key range read per page of this doctor's patients
+        patientTableModel = new PagedTableModel(columns, loader,
+            "s.patient_id, s.name, s.date_of_birth, s.last_visit, s.latest_diagnosis",
+            "patient_summary s",
+            "s.doctor_id = ?", new Object[]{session.getDoctorId()},
+            null, new String[]{"s.patient_id"}, false,
+            rs -> new Object[]{
+                rs.getString("patient_id"),
+                rs.getString("name"),
+                ageOf(rs.getDate("date_of_birth")),
+                rs.getString("last_visit"),
+                rs.getString("latest_diagnosis"),
+                "View/Edit"
+            });
+        patientTableModel.setOnError(e -> JOptionPane.showMessageDialog(this, "Error loading patients: " + e.getMessage()));
         JTable patientTable = new JTable(patientTableModel);
         JScrollPane scrollPane = new JScrollPane(patientTable);
 
@@ -151,37 +170,24 @@ tabbedPane.addTab("Appointments", createAppointmentsPanel());
         panel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
 
         String[] columns = {"Appointment ID", "Patient", "Date", "Time", "Status", "Actions"};
-        DefaultTableModel model = new DefaultTableModel(columns, 0);
-        
-        // Sample appointment data
-        try {
-            Connection conn = DatabaseConnection.getConnection();
-            String query = "SELECT a.appointment_id, u.name as patient_name, " +
-             "a.appointment_date, a.appointment_time, a.status " +
-             "FROM appointments a " +
-             "JOIN patients p ON a.patient_id = p.patient_id " +
-             "JOIN users u ON p.user_id = u.user_id " +
-             "WHERE a.doctor_id = 'D001' " + // Hardcoded for demo
-             "ORDER BY a.appointment_date DESC";
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery(query);
-            
-            while (rs.next()) {
-                model.addRow(new Object[]{
-                    rs.getString("appointment_id"),
-                    rs.getString("patient_name"),
-                    rs.getString("appointment_date"),
-                    rs.getString("appointment_time"),
-                    rs.getString("status"),
-                    "View Details"
-                });
-            }
-            
-            rs.close();
-            stmt.close();
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this, "Error loading appointments: " + e.getMessage());
-        }
+        PagedTableModel model = new PagedTableModel(columns, loader,
+            "a.appointment_id, u.name as patient_name, " +
+            "a.appointment_date, a.appointment_time, a.status",
+            "appointments a " +
+            "JOIN patients p ON a.patient_id = p.patient_id " +
+            "JOIN users u ON p.user_id = u.user_id",
+            "a.doctor_id = ?", new Object[]{session.getDoctorId()},
+            null, new String[]{"a.appointment_date", "a.appointment_id"}, true,
+            rs -> new Object[]{
+                rs.getString("appointment_id"),
+                rs.getString("patient_name"),
+                rs.getString("appointment_date"),
+                rs.getString("appointment_time"),
+                rs.getString("status"),
+                "View Details"
+            });
+        model.setOnError(e -> JOptionPane.showMessageDialog(this, "Error loading appointments: " + e.getMessage()));
+        model.reload();
 
         JTable appointmentTable = new JTable(model);
         JScrollPane scrollPane = new JScrollPane(appointmentTable);
@@ -193,35 +199,13 @@ tabbedPane.addTab("Appointments", createAppointmentsPanel());
     }
 
     private void loadPatientData() {
-        try {
-            patientTableModel.setRowCount(0);
-            Connection conn = DatabaseConnection.getConnection();
-            String query = "SELECT p.patient_id, u.name, TIMESTAMPDIFF(YEAR, p.date_of_birth, CURDATE()) as age, " +
-                         "MAX(a.appointment_date) as last_visit, mr.diagnosis " +
-                         "FROM patients p " +
-                         "JOIN users u ON p.user_id = u.user_id " +
-                         "LEFT JOIN appointments a ON p.patient_id = a.patient_id " +
-                         "LEFT JOIN medical_records mr ON p.patient_id = mr.patient_id " +
-                         "GROUP BY p.patient_id";            
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery(query);
-            
-            while (rs.next()) {
-                patientTableModel.addRow(new Object[]{
-                    rs.getString("patient_id"),
-                    rs.getString("name"),
-                    rs.getString("age"),
-                    rs.getString("last_visit"),
-                    rs.getString("diagnosis"),
-                    "View/Edit"
-                });
-            }
-            
-            rs.close();
-            stmt.close();
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this, "Error loading patients: " + e.getMessage());
-        }
+        patientTableModel.reload();
+    }
+
+    // Age is worked out when shown, so the stored row never goes stale on a birthday
+    private static String ageOf(java.sql.Date dateOfBirth) {
+        if (dateOfBirth == null) return "";
+        return String.valueOf(Period.between(dateOfBirth.toLocalDate(), LocalDate.now()).getYears());
     }
 
     private void viewPatientRecord(JTable table) {
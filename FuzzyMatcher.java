@@ -0,0 +1,336 @@
+// FuzzyMatcher.java - Typo-tolerant similarity between Lost and Found items
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+
+/*
+  Two signals, both tolerant of misspellings and wording:
+  - word match: each word of one item's name is paired with the closest word
+    of the other's (exact = 1, "walet"/"wallet" within 1-2 edits = partial),
+    after mapping synonyms to one word (purse -> wallet, mobile -> phone);
+  - trigram overlap (Jaccard) of name + description, which also catches
+    words that are split or run together.
+
+  Profiles (normalised words + sorted trigram codes) are cached per item up
+  to MAX_PROFILES, so memory stays bounded at ~100k active items. Ranking
+  keeps only the best TOP_K per item, so nothing grows with n.
+
+  Matches stored for an item are also offered to each candidate's own list,
+  so both the Lost and the Found side see them precomputed. A reverse index
+  (listedIn) records which lists mention each item, so closing or editing an
+  item takes its old copy out of every list without scanning them all.
+  Choosing the candidates and running in the background is
+  MatchingPipeline's job.
+*/
+public class FuzzyMatcher {
+    public static final int TOP_K = 5;
+    private static final double MIN_SCORE = 0.30;
+    private static final int MAX_PROFILES = Integer.getInteger("hms.matchProfileCacheSize", 100_000);
+
+    private static final double WORD_WEIGHT = 0.6;
+    private static final double TRIGRAM_WEIGHT = 0.4;
+
+    private static final Map<String, String> SYNONYMS = new HashMap<>();
+    static {
+        synonyms("wallet", "purse", "billfold");
+        synonyms("phone", "mobile", "cellphone", "smartphone", "iphone");
+        synonyms("glasses", "spectacles", "specs", "eyeglasses");
+        synonyms("bag", "handbag", "backpack", "rucksack");
+        synonyms("keys", "key", "keychain", "keyring");
+        synonyms("id", "badge", "card");
+        synonyms("jacket", "coat");
+        synonyms("earphones", "earbuds", "headphones", "airpods");
+        synonyms("laptop", "notebook");
+        synonyms("ring", "band");
+    }
+
+    private static void synonyms(String canonical, String... words) {
+        for (String w : words) SYNONYMS.put(w, canonical);
+    }
+
+    private final ConcurrentHashMap<String, Profile> profiles = new ConcurrentHashMap<>();
+    // Top-k per item, both directions; entries dropped when the item is closed
+    private final ConcurrentHashMap<String, List<Match>> matchesById = new ConcurrentHashMap<>();
+    // Item id -> ids of the items whose stored lists hold a Match for it
+    private final ConcurrentHashMap<String, Set<String>> listedIn = new ConcurrentHashMap<>();
+
+    public static class Match {
+        private final Item item;
+        private final double score;
+
+        Match(Item item, double score) {
+            this.item = item;
+            this.score = score;
+        }
+
+        public Item getItem() { return item; }
+        public double getScore() { return score; }
+    }
+
+    // Precomputed best matches for an item, best first (empty if none yet)
+    public List<Match> getMatches(String itemId) {
+        return matchesById.getOrDefault(itemId, Collections.emptyList());
+    }
+
+    // Best k opposite-type candidates scoring at least MIN_SCORE, best first, on the calling
+    // thread (the caller already splits the work, e.g. a fork-join task)
+    public List<Match> rankSequential(Item item, Collection<Item> candidates, int k) {
+        return rank(item, candidates.stream(), k);
+    }
+
+    private List<Match> rank(Item item, Stream<Item> candidates, int k) {
+        Profile profile = profile(item);
+        TopK best = candidates
+            .filter(c -> isOpposite(item, c))
+            .map(c -> new Match(c, score(profile, profile(c))))
+            .filter(m -> m.score >= MIN_SCORE)
+            .collect(topK(k));
+        return best.sorted();
+    }
+
+    // Drop everything held for a closed/removed item, including its place in other items' lists
+    public void forget(String itemId) {
+        profiles.remove(itemId);
+        replaceList(itemId, Collections.emptyList());
+        Set<String> owners = listedIn.remove(itemId);
+        if (owners != null) {
+            for (String owner : owners) removeFrom(owner, itemId, null);
+        }
+    }
+
+    /*
+      Replaces the item's own list with this ranking (after an edit the old
+      scores mean nothing) and offers the item to each candidate's list.
+      Copies of an older version of the item (Item objects are replaced on
+      update) still sitting in other lists hold its old text and score, so
+      they are dropped first; a list that loses it this way gets it back when
+      that list's item is next matched.
+    */
+    public void store(Item item, List<Match> matches) {
+        String itemId = item.getItemId();
+        Set<String> owners = listedIn.get(itemId);
+        if (owners != null) {
+            for (String owner : new ArrayList<>(owners)) removeFrom(owner, itemId, item);
+        }
+
+        List<Match> own = new ArrayList<>(matches);
+        own.sort(BEST_FIRST);
+        replaceList(itemId, own.size() > TOP_K ? own.subList(0, TOP_K) : own);
+        for (Match m : matches) {
+            offer(m.item.getItemId(), new Match(item, m.score));
+        }
+    }
+
+    private void replaceList(String itemId, List<Match> matches) {
+        matchesById.compute(itemId, (id, current) -> update(id, current, matches));
+    }
+
+    // Drops removedId from itemId's list, unless the stored copy is current (the same Item object)
+    private void removeFrom(String itemId, String removedId, Item current) {
+        matchesById.computeIfPresent(itemId, (id, list) -> {
+            List<Match> kept = new ArrayList<>();
+            for (Match m : list) {
+                if (!m.item.getItemId().equals(removedId) || m.item == current) kept.add(m);
+            }
+            if (kept.size() == list.size()) return list;
+            return update(id, list, kept);
+        });
+    }
+
+    // Merges one match into an item's stored top-k
+    private void offer(String itemId, Match match) {
+        matchesById.compute(itemId, (id, current) -> {
+            List<Match> merged = new ArrayList<>();
+            if (current != null) {
+                for (Match m : current) {
+                    if (!m.item.getItemId().equals(match.item.getItemId())) merged.add(m);
+                }
+            }
+            merged.add(match);
+            merged.sort(BEST_FIRST);
+            if (merged.size() > TOP_K) merged = merged.subList(0, TOP_K);
+            return update(id, current, merged);
+        });
+    }
+
+    // The new stored value for ownerId's list (null when empty), with listedIn brought in line
+    private List<Match> update(String ownerId, List<Match> before, List<Match> after) {
+        Set<String> kept = new HashSet<>();
+        for (Match m : after) {
+            String id = m.item.getItemId();
+            kept.add(id);
+            listedIn.compute(id, (k, owners) -> {
+                if (owners == null) owners = ConcurrentHashMap.newKeySet();
+                owners.add(ownerId);
+                return owners;
+            });
+        }
+        if (before != null) {
+            for (Match m : before) {
+                String id = m.item.getItemId();
+                if (kept.contains(id)) continue;
+                listedIn.computeIfPresent(id, (k, owners) -> {
+                    owners.remove(ownerId);
+                    return owners.isEmpty() ? null : owners;
+                });
+            }
+        }
+        return after.isEmpty() ? null : Collections.unmodifiableList(new ArrayList<>(after));
+    }
+
+    private static boolean isOpposite(Item a, Item b) {
+        return !a.getItemId().equals(b.getItemId())
+            && a.getType() != null && b.getType() != null
+            && !a.getType().equalsIgnoreCase(b.getType());
+    }
+
+    // ---------------- Scoring ----------------
+
+    private static double score(Profile a, Profile b) {
+        double words = (wordScore(a.nameWords, b.nameWords) + wordScore(b.nameWords, a.nameWords)) / 2;
+        return WORD_WEIGHT * words + TRIGRAM_WEIGHT * jaccard(a.trigrams, b.trigrams);
+    }
+
+    // Average over from's words of the best similarity with any word in to
+    private static double wordScore(String[] from, String[] to) {
+        if (from.length == 0 || to.length == 0) return 0;
+        double total = 0;
+        for (String w : from) {
+            double best = 0;
+            for (String v : to) {
+                best = Math.max(best, wordSimilarity(w, v));
+                if (best == 1) break;
+            }
+            total += best;
+        }
+        return total / from.length;
+    }
+
+    private static double wordSimilarity(String a, String b) {
+        if (a.equals(b)) return 1;
+        int longest = Math.max(a.length(), b.length());
+        // Short words allow one typo, longer ones two
+        int maxEdits = longest <= 4 ? 1 : 2;
+        int d = boundedLevenshtein(a, b, maxEdits);
+        return d > maxEdits ? 0 : 1 - (double) d / longest;
+    }
+
+    // Edit distance, giving up (returning max + 1) as soon as it must exceed max
+    static int boundedLevenshtein(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) return max + 1;
+        int[] prev = new int[b.length() + 1];
+        int[] cur = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) prev[j] = j;
+        for (int i = 1; i <= a.length(); i++) {
+            cur[0] = i;
+            int rowMin = cur[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                cur[j] = Math.min(Math.min(cur[j - 1] + 1, prev[j] + 1), prev[j - 1] + cost);
+                rowMin = Math.min(rowMin, cur[j]);
+            }
+            if (rowMin > max) return max + 1;
+            int[] tmp = prev; prev = cur; cur = tmp;
+        }
+        return prev[b.length()];
+    }
+
+    // |A n B| / |A u B| over two sorted, de-duplicated arrays
+    private static double jaccard(long[] a, long[] b) {
+        if (a.length == 0 || b.length == 0) return 0;
+        int i = 0, j = 0, common = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] == b[j]) { common++; i++; j++; }
+            else if (a[i] < b[j]) i++;
+            else j++;
+        }
+        return (double) common / (a.length + b.length - common);
+    }
+
+    // ---------------- Profiles ----------------
+
+    private Profile profile(Item item) {
+        Profile p = profiles.get(item.getItemId());
+        // Item objects are replaced on update, so identity tells us whether the profile is current
+        if (p != null && p.source == item) return p;
+        p = new Profile(item);
+        if (profiles.size() < MAX_PROFILES || profiles.containsKey(item.getItemId())) {
+            profiles.put(item.getItemId(), p);
+        }
+        return p;
+    }
+
+    private static class Profile {
+        final Item source;
+        final String[] nameWords;
+        final long[] trigrams;
+
+        Profile(Item item) {
+            source = item;
+            nameWords = normalise(item.getName()).toArray(new String[0]);
+            List<String> all = normalise(item.getName());
+            all.addAll(normalise(item.getDescription()));
+            trigrams = trigrams(all);
+        }
+    }
+
+    private static List<String> normalise(String text) {
+        List<String> words = ItemSearchIndex.tokenize(text, new ArrayList<>());
+        for (int i = 0; i < words.size(); i++) {
+            words.set(i, SYNONYMS.getOrDefault(words.get(i), words.get(i)));
+        }
+        return words;
+    }
+
+    // Each word padded with spaces ("  cat " -> "  c", " ca", "cat", "at ") and packed into a long
+    private static long[] trigrams(List<String> words) {
+        TreeSet<Long> codes = new TreeSet<>();
+        for (String w : words) {
+            String padded = "  " + w + " ";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                codes.add(((long) padded.charAt(i) << 32) | ((long) padded.charAt(i + 1) << 16) | padded.charAt(i + 2));
+            }
+        }
+        long[] out = new long[codes.size()];
+        int i = 0;
+        for (long c : codes) out[i++] = c;
+        return out;
+    }
+
+    // ---------------- Top-k ----------------
+
+    private static final Comparator<Match> BEST_FIRST =
+        Comparator.comparingDouble((Match m) -> m.score).reversed()
+                  .thenComparing(m -> m.item.getItemId());
+
+    private static Collector<Match, TopK, TopK> topK(int k) {
+        return Collector.of(() -> new TopK(k), TopK::offer, TopK::merge);
+    }
+
+    // Min-heap of the k best seen so far; one per parallel chunk, merged at the end
+    private static class TopK {
+        private final int k;
+        private final PriorityQueue<Match> heap = new PriorityQueue<>(BEST_FIRST.reversed());
+
+        TopK(int k) {
+            this.k = k;
+        }
+
+        void offer(Match m) {
+            heap.add(m);
+            if (heap.size() > k) heap.poll();
+        }
+
+        TopK merge(TopK other) {
+            for (Match m : other.heap) offer(m);
+            return this;
+        }
+
+        List<Match> sorted() {
+            List<Match> list = new ArrayList<>(heap);
+            list.sort(BEST_FIRST);
+            return list;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+// IdAllocator.java - Hi/lo ID allocation for users, appointments and lost & found items
+import java.sql.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/*
+  Each entity has a row in id_sequences. A single atomic UPDATE reserves a
+  block of BLOCK_SIZE numbers for this process, which are then handed out
+  from memory without touching the database. Two clients can never receive
+  the same block, so IDs can't collide. Numbers left in a block when the
+  application exits are simply skipped.
+*/
+public class IdAllocator {
+    private static final int BLOCK_SIZE = Integer.getInteger("hms.idBlockSize", 20);
+
+    public static final IdAllocator USERS = new IdAllocator("users", "U", "users", "user_id");
+    public static final IdAllocator APPOINTMENTS = new IdAllocator("appointments", "A", "appointments", "appointment_id");
+    public static final IdAllocator LOST_FOUND_ITEMS = new IdAllocator("lost_found_items", "ITEM", "lost_found_items", "item_id");
+
+    private final String entity;
+    private final String prefix;
+    private final String table;
+    private final String idColumn;
+    // Starts exhausted so the first call reserves a block
+    private final AtomicReference<Block> current = new AtomicReference<>(new Block(0, 0));
+
+    private IdAllocator(String entity, String prefix, String table, String idColumn) {
+        this.entity = entity;
+        this.prefix = prefix;
+        this.table = table;
+        this.idColumn = idColumn;
+    }
+
+    // Returns the next formatted ID, e.g. U012, A1000, ITEM007
+    public String nextId() throws SQLException {
+        while (true) {
+            Block block = current.get();
+            long value = block.next.getAndIncrement();
+            if (value < block.end) {
+                return format(value);
+            }
+            // Block used up: only one thread reserves the next one, the others retry on it
+            synchronized (this) {
+                if (current.get() == block) {
+                    current.set(reserveBlock());
+                }
+            }
+        }
+    }
+
+    // At least three digits, growing past 999 as needed (U999 -> U1000)
+    private String format(long value) {
+        return prefix + String.format("%03d", value);
+    }
+
+    private Block reserveBlock() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            String reserve = "UPDATE id_sequences SET next_value = LAST_INSERT_ID(next_value + ?) WHERE entity = ?";
+            try (PreparedStatement pstmt = conn.prepareStatement(reserve)) {
+                pstmt.setInt(1, BLOCK_SIZE);
+                pstmt.setString(2, entity);
+                if (pstmt.executeUpdate() == 0) {
+                    // First use of this entity: seed from existing data, then reserve again
+                    seedSequence(conn);
+                    if (pstmt.executeUpdate() == 0) {
+                        throw new SQLException("Could not reserve IDs for " + entity);
+                    }
+                }
+            }
+
+            // LAST_INSERT_ID() is per connection, so this reads back exactly our UPDATE
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT LAST_INSERT_ID()")) {
+                rs.next();
+                long end = rs.getLong(1);
+                return new Block(end - BLOCK_SIZE, end);
+            }
+        }
+    }
+
+    private void seedSequence(Connection conn) throws SQLException {
+        // One-time scan so new IDs continue after the ones already in the table
+        String seed = "INSERT IGNORE INTO id_sequences (entity, next_value) " +
+                      "SELECT ?, COALESCE(MAX(CAST(SUBSTRING(" + idColumn + ", " + (prefix.length() + 1) +
+                      ") AS UNSIGNED)), 0) + 1 FROM " + table;
+        try (PreparedStatement pstmt = conn.prepareStatement(seed)) {
+            pstmt.setString(1, entity);
+            pstmt.executeUpdate();
+        }
+    }
+
+    // Half-open range [next, end) of reserved numbers
+    private static class Block {
+        final AtomicLong next;
+        final long end;
+
+        Block(long start, long end) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+}
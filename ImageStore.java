@@ -0,0 +1,146 @@
+// ImageStore.java - Optional content-addressed directory for item photos instead of MySQL BLOBs
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/*
+  Enabled by -Dhms.imageStore=<directory>; without it photos stay in
+  lost_found_items.image_data as before.
+
+  Each photo is stored once under its SHA-256 (ab/cd/abcd...), so the same
+  upload twice takes the space of one, and the row keeps only image_hash.
+  Files are written to a temp file and atomically moved into place, and are
+  never modified afterwards, which makes them safe to memory-map for reads.
+
+  ItemImages looks at image_hash first, so reportItem/viewItemDetails work
+  the same with either backend. Existing BLOBs are moved over with
+  ImageStoreMigrator.
+*/
+public class ImageStore {
+    private static final String DIRECTORY = System.getProperty("hms.imageStore");
+
+    public static boolean isEnabled() {
+        return DIRECTORY != null && !DIRECTORY.trim().isEmpty();
+    }
+
+    // Stores the bytes (if not already present) and returns their hash
+    public static String put(byte[] data) throws IOException {
+        return put(new java.io.ByteArrayInputStream(data));
+    }
+
+    // Streams to a temp file while hashing, so large photos are never held in memory
+    public static String put(InputStream in) throws IOException {
+        Path root = root();
+        Files.createDirectories(root);
+        Path temp = Files.createTempFile(root, "upload-", ".tmp");
+        try {
+            MessageDigest digest = sha256();
+            try (DigestInputStream hashing = new DigestInputStream(in, digest)) {
+                Files.copy(hashing, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            String hash = toHex(digest.digest());
+            Path target = pathFor(hash);
+            if (Files.exists(target)) {
+                return hash; // duplicate upload: keep the existing copy
+            }
+            Files.createDirectories(target.getParent());
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                // Another client stored the same photo meanwhile
+            }
+            return hash;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    public static boolean contains(String hash) {
+        return isEnabled() && Files.exists(pathFor(hash));
+    }
+
+    // Read-only mapping of the whole file; the OS pages it in as it is read
+    public static MappedByteBuffer map(String hash) throws IOException {
+        try (FileChannel channel = FileChannel.open(pathFor(hash), StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    public static InputStream open(String hash) throws IOException {
+        return new BufferInputStream(map(hash));
+    }
+
+    // Copies to target with a channel transfer, no user-space buffer; returns bytes written
+    public static long copyTo(String hash, Path target) throws IOException {
+        try (FileChannel in = FileChannel.open(pathFor(hash), StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE,
+                     StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long size = in.size();
+            long position = 0;
+            while (position < size) {
+                position += in.transferTo(position, size - position, out);
+            }
+            return size;
+        }
+    }
+
+    private static Path root() {
+        if (!isEnabled()) throw new IllegalStateException("Image store not configured (-Dhms.imageStore)");
+        return Paths.get(DIRECTORY);
+    }
+
+    // Two levels of fan-out keep directories small
+    private static Path pathFor(String hash) {
+        if (!hash.matches("[0-9a-f]{64}")) throw new IllegalArgumentException("Bad image hash: " + hash);
+        return root().resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+    private static class BufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        BufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) return 0;
+            if (!buffer.hasRemaining()) return -1;
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
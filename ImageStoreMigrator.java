@@ -0,0 +1,90 @@
+// ImageStoreMigrator.java - Moves existing image_data BLOBs into the ImageStore
+import java.io.InputStream;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+  Usage: java -Dhms.imageStore=/path/to/images ImageStoreMigrator [batchSize]
+
+  Walks lost_found_items in item_id order, batchSize ids at a time, and for
+  each row streams the BLOB into the store, then sets image_hash and clears
+  image_data. Only one photo is in flight at once, so memory stays flat.
+  Safe to stop and re-run: rows already moved are skipped.
+*/
+public class ImageStoreMigrator {
+    private static final int DEFAULT_BATCH_SIZE = 100;
+
+    public static void main(String[] args) {
+        if (!ImageStore.isEnabled()) {
+            System.out.println("Set -Dhms.imageStore=<directory> to choose where images go.");
+            return;
+        }
+        int batchSize = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_BATCH_SIZE;
+
+        long moved = 0;
+        String lastId = "";
+        try {
+            while (true) {
+                List<String> batch = nextBatch(lastId, batchSize);
+                if (batch.isEmpty()) break;
+                for (String itemId : batch) {
+                    if (migrate(itemId)) moved++;
+                }
+                lastId = batch.get(batch.size() - 1);
+                System.out.println("Migrated " + moved + " images (up to " + lastId + ")");
+            }
+            System.out.println("✅ Image migration finished: " + moved + " images moved to the image store");
+        } catch (Exception e) {
+            System.out.println("❌ Image migration stopped at " + lastId + ": " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            DatabaseConnection.closeConnection();
+        }
+    }
+
+    // Ids only, so a batch never pulls BLOBs
+    private static List<String> nextBatch(String afterId, int size) throws SQLException {
+        List<String> ids = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(
+                     "SELECT item_id FROM lost_found_items " +
+                     "WHERE image_data IS NOT NULL AND image_hash IS NULL AND item_id > ? " +
+                     "ORDER BY item_id LIMIT ?")) {
+            pstmt.setString(1, afterId);
+            pstmt.setInt(2, size);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) ids.add(rs.getString(1));
+            }
+        }
+        return ids;
+    }
+
+    private static boolean migrate(String itemId) throws Exception {
+        String hash;
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(
+                     "SELECT image_data FROM lost_found_items WHERE item_id = ?",
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            pstmt.setFetchSize(Integer.MIN_VALUE);
+            pstmt.setString(1, itemId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next()) return false;
+                try (InputStream in = rs.getBinaryStream(1)) {
+                    if (in == null) return false;
+                    hash = ImageStore.put(in);
+                }
+            }
+        }
+
+        // The file is in place before the row points at it
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(
+                     "UPDATE lost_found_items SET image_hash = ?, image_data = NULL " +
+                     "WHERE item_id = ? AND image_hash IS NULL")) {
+            pstmt.setString(1, hash);
+            pstmt.setString(2, itemId);
+            return pstmt.executeUpdate() > 0;
+        }
+    }
+}
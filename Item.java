@@ -5,14 +5,23 @@ public class Item {
     private String type;
     private String location;
     private String contact;
+    private String description;
+    private String dateReported;
 
     public Item(String itemId, String name, String category, String type, String location, String contact) {
+        this(itemId, name, category, type, location, contact, "", "");
+    }
+
+    public Item(String itemId, String name, String category, String type, String location, String contact,
+                String description, String dateReported) {
         this.itemId = itemId;
         this.name = name;
         this.category = category;
         this.type = type;
         this.location = location;
         this.contact = contact;
+        this.description = description;
+        this.dateReported = dateReported;
     }
 
     public String getItemId() { return itemId; }
@@ -21,4 +30,7 @@ public class Item {
     public String getType() { return type; }
     public String getLocation() { return location; }
     public String getContact() { return contact; }
+    public String getDescription() { return description; }
+    // yyyy-MM-dd as stored in lost_found_items.date_reported
+    public String getDateReported() { return dateReported; }
 }
@@ -0,0 +1,169 @@
+// ItemImages.java - Reads Lost & Found item images only when they are shown or downloaded
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.*;
+
+/*
+  Metadata queries never select image_data; the bytes are read here, one
+  item at a time, when a dialog actually shows the picture or the user
+  downloads it. Both paths consume getBinaryStream() directly (decoder /
+  file channel) instead of building a byte[] copy first, and the query is
+  run as a forward-only streaming result so the driver holds one row only.
+  Rows with an image_hash are read from the ImageStore instead (memory
+  mapped for decoding, channel-to-channel for downloads).
+
+  Thumbnails (THUMBNAIL_SIZE JPEGs in thumbnail_data) are made once, in the
+  background right after upload, and served through ThumbnailCache; items
+  reported before thumbnails existed get one the first time they are shown.
+  Call from a background thread.
+*/
+public class ItemImages {
+    private static final String IMAGE_QUERY = "SELECT image_hash, image_data FROM lost_found_items WHERE item_id = ?";
+    private static final String THUMBNAIL_QUERY = "SELECT thumbnail_data FROM lost_found_items WHERE item_id = ?";
+    private static final int TRANSFER_CHUNK = 1 << 20;
+    public static final int THUMBNAIL_SIZE = 200;
+
+    public interface StreamHandler<T> {
+        T handle(InputStream in) throws IOException;
+    }
+
+    private interface StoreHandler<T> {
+        T handle(String hash) throws IOException;
+    }
+
+    // Decoded image, or null if the item has none
+    public static BufferedImage read(String itemId) throws SQLException, IOException {
+        return withImage(itemId, ImageIO::read, hash -> {
+            try (InputStream in = ImageStore.open(hash)) {
+                return ImageIO.read(in);
+            }
+        });
+    }
+
+    // Streams the stored bytes to target; returns the number of bytes written (0 if no image)
+    public static long download(String itemId, Path target) throws SQLException, IOException {
+        Long written = withImage(itemId, in -> {
+            try (ReadableByteChannel source = Channels.newChannel(in);
+                 FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE,
+                         StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                long position = 0;
+                long n;
+                while ((n = out.transferFrom(source, position, TRANSFER_CHUNK)) > 0) {
+                    position += n;
+                }
+                return position;
+            }
+        }, hash -> ImageStore.copyTo(hash, target));
+        return written == null ? 0 : written;
+    }
+
+    // Cached thumbnail, else the stored one, else made from the full image and stored; null if no image
+    public static BufferedImage thumbnail(String itemId) throws SQLException, IOException {
+        BufferedImage cached = ThumbnailCache.get(itemId);
+        if (cached != null) return cached;
+
+        BufferedImage thumb = null;
+        byte[] stored = readStoredThumbnail(itemId);
+        if (stored != null) {
+            thumb = ImageIO.read(new ByteArrayInputStream(stored));
+        }
+        if (thumb == null) {
+            BufferedImage full = read(itemId);
+            if (full == null) return null;
+            byte[] jpeg = encodeThumbnail(full);
+            storeThumbnail(itemId, jpeg);
+            thumb = ImageIO.read(new ByteArrayInputStream(jpeg));
+        }
+        ThumbnailCache.put(itemId, thumb);
+        return thumb;
+    }
+
+    // Scaled-down JPEG of an uploaded image, ready for thumbnail_data
+    public static byte[] encodeThumbnail(BufferedImage source) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (!ImageIO.write(scaleToFit(source, THUMBNAIL_SIZE), "jpg", out)) {
+            throw new IOException("No JPEG writer available");
+        }
+        return out.toByteArray();
+    }
+
+    public static void storeThumbnail(String itemId, byte[] jpeg) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            if (conn == null) throw new SQLException("No database connection available");
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "UPDATE lost_found_items SET thumbnail_data = ? WHERE item_id = ?")) {
+                pstmt.setBytes(1, jpeg);
+                pstmt.setString(2, itemId);
+                pstmt.executeUpdate();
+            }
+        }
+    }
+
+    private static byte[] readStoredThumbnail(String itemId) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            if (conn == null) throw new SQLException("No database connection available");
+            try (PreparedStatement pstmt = conn.prepareStatement(THUMBNAIL_QUERY)) {
+                pstmt.setString(1, itemId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    return rs.next() ? rs.getBytes(1) : null;
+                }
+            }
+        }
+    }
+
+    // Scales into a max x max box (keeping aspect ratio) off the EDT, so painting is just a blit
+    public static BufferedImage scaleToFit(BufferedImage source, int max) {
+        double scale = Math.min(1.0, Math.min((double) max / source.getWidth(), (double) max / source.getHeight()));
+        int w = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int h = Math.max(1, (int) Math.round(source.getHeight() * scale));
+        // RGB on white so the result can be written as JPEG even if the source had transparency
+        BufferedImage scaled = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = scaled.createGraphics();
+        try {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, w, h);
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(source, 0, 0, w, h, null);
+        } finally {
+            g.dispose();
+        }
+        return scaled;
+    }
+
+    private static <T> T withImage(String itemId, StreamHandler<T> fromBlob, StoreHandler<T> fromStore)
+            throws SQLException, IOException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            if (conn == null) throw new SQLException("No database connection available");
+            // Not through the statement cache: streaming mode is set per statement
+            try (PreparedStatement pstmt = conn.prepareStatement(IMAGE_QUERY,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                pstmt.setFetchSize(Integer.MIN_VALUE);
+                pstmt.setString(1, itemId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (!rs.next()) return null;
+                    String hash = rs.getString("image_hash");
+                    if (hash != null) {
+                        if (!ImageStore.contains(hash)) {
+                            throw new IOException("Image " + hash + " not found in image store");
+                        }
+                        return fromStore.handle(hash);
+                    }
+                    try (InputStream in = rs.getBinaryStream("image_data")) {
+                        return in == null ? null : fromBlob.handle(in);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,155 @@
+// ItemSearchIndex.java - In-memory inverted index for Lost & Found text search
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/*
+  Every word of an item's name, description, category and location maps to
+  the ids of the items containing it. Words live in a sorted map, so a
+  prefix ("wal" -> wallet, walkman) is one range lookup. A query is the AND
+  of its words, each matched as a prefix, starting from the rarest word.
+
+  Kept in step with the database by upsert()/remove() from reportItem and
+  the incremental refresher; searches never touch MySQL.
+*/
+public class ItemSearchIndex {
+
+    private final NavigableMap<String, Set<String>> postings = new TreeMap<>();
+    private final Map<String, Item> itemsById = new HashMap<>();
+    // Words each item was indexed under, so an update can take them out again
+    private final Map<String, Set<String>> tokensById = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public void upsert(Item item) {
+        Set<String> tokens = new HashSet<>();
+        tokenize(item.getName(), tokens);
+        tokenize(item.getDescription(), tokens);
+        tokenize(item.getCategory(), tokens);
+        tokenize(item.getLocation(), tokens);
+
+        lock.writeLock().lock();
+        try {
+            removeLocked(item.getItemId());
+            itemsById.put(item.getItemId(), item);
+            tokensById.put(item.getItemId(), tokens);
+            for (String token : tokens) {
+                postings.computeIfAbsent(token, t -> new HashSet<>()).add(item.getItemId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String itemId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(itemId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return itemsById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /*
+      Items containing every word of text (each as a prefix), optionally
+      restricted to one category and/or type (null or "All" = any).
+      Newest first. An empty text returns everything matching the filters.
+    */
+    public List<Item> search(String text, String category, String type) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(tokenize(text, new ArrayList<>())));
+
+        lock.readLock().lock();
+        try {
+            Collection<String> candidates;
+            if (terms.isEmpty()) {
+                candidates = itemsById.keySet();
+            } else {
+                List<Set<String>> matches = new ArrayList<>();
+                for (String term : terms) {
+                    Set<String> ids = idsWithPrefix(term);
+                    if (ids.isEmpty()) return Collections.emptyList();
+                    matches.add(ids);
+                }
+                // Intersect starting from the smallest set
+                matches.sort(Comparator.comparingInt(Set::size));
+                Set<String> result = new HashSet<>(matches.get(0));
+                for (int i = 1; i < matches.size() && !result.isEmpty(); i++) {
+                    result.retainAll(matches.get(i));
+                }
+                candidates = result;
+            }
+
+            List<Item> items = new ArrayList<>();
+            for (String id : candidates) {
+                Item item = itemsById.get(id);
+                if (matchesFilter(item.getCategory(), category) && matchesFilter(item.getType(), type)) {
+                    items.add(item);
+                }
+            }
+            items.sort(NEWEST_FIRST);
+            return items;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static final Comparator<Item> NEWEST_FIRST =
+        Comparator.comparing((Item i) -> nullToEmpty(i.getDateReported()))
+                  .thenComparing(i -> nullToEmpty(i.getItemId()))
+                  .reversed();
+
+    private Set<String> idsWithPrefix(String prefix) {
+        // Every word that starts with prefix sorts between prefix and prefix + MAX_VALUE
+        SortedMap<String, Set<String>> range = postings.subMap(prefix, prefix + Character.MAX_VALUE);
+        if (range.size() == 1) return range.values().iterator().next();
+        Set<String> ids = new HashSet<>();
+        for (Set<String> posting : range.values()) {
+            ids.addAll(posting);
+        }
+        return ids;
+    }
+
+    private void removeLocked(String itemId) {
+        itemsById.remove(itemId);
+        Set<String> tokens = tokensById.remove(itemId);
+        if (tokens == null) return;
+        for (String token : tokens) {
+            Set<String> ids = postings.get(token);
+            if (ids == null) continue;
+            ids.remove(itemId);
+            if (ids.isEmpty()) postings.remove(token);
+        }
+    }
+
+    private static boolean matchesFilter(String value, String filter) {
+        return filter == null || filter.equals("All") || filter.equalsIgnoreCase(value);
+    }
+
+    private static String nullToEmpty(String s) {
+        return s == null ? "" : s;
+    }
+
+    // Lower-cased runs of letters/digits
+    static <C extends Collection<String>> C tokenize(String text, C out) {
+        if (text == null) return out;
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                out.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return out;
+    }
+}
@@ -181,14 +181,22 @@ public class LoginFrame extends JFrame {
                 return;
             }
 
-            if (authenticateUser(username, password, role)) {
+            Session session = authenticateUser(username, password, role);
+            if (session != null) {
+
+                if (!hasProfile(session)) {
+                    JOptionPane.showMessageDialog(LoginFrame.this,
+                        "No " + role.toLowerCase() + " profile is linked to this account",
+                        "Error", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
 
                 JOptionPane.showMessageDialog(LoginFrame.this,
                     "Login successful! Welcome " + username,
                     "Success", JOptionPane.INFORMATION_MESSAGE);
 
                 // NEW FULL-MARKS CODE
-                User u = UserFactory.getUser(role, username);
+                User u = UserFactory.getUser(session);
                 u.openDashboard();
                 dispose();
             }
@@ -199,28 +207,38 @@ public class LoginFrame extends JFrame {
             }
         }
 
-        private boolean authenticateUser(String username, String password, String role) {
-            try {
-                Connection conn = DatabaseConnection.getConnection();
-                String query = "SELECT * FROM users WHERE username = ? AND password = ? AND role = ? AND status = 'Active'";
-
-                PreparedStatement pstmt = conn.prepareStatement(query);
-                pstmt.setString(1, username);
-                pstmt.setString(2, password);
-                pstmt.setString(3, role);
-
-                ResultSet rs = pstmt.executeQuery();
-                boolean result = rs.next();
+        // Doctors and patients need their doctor_id / patient_id to scope the dashboard
+        private boolean hasProfile(Session session) {
+            if ("Doctor".equalsIgnoreCase(session.getRole())) return session.getDoctorId() != null;
+            if ("Patient".equalsIgnoreCase(session.getRole())) return session.getPatientId() != null;
+            return true;
+        }
 
-                rs.close();
-                pstmt.close();
-                return result;
+        // The user row and its doctor/patient ids in one lookup; null if the login is wrong
+        private Session authenticateUser(String username, String password, String role) {
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                String query = "SELECT u.user_id, u.name, u.role, d.doctor_id, p.patient_id FROM users u " +
+                               "LEFT JOIN doctors d ON d.user_id = u.user_id " +
+                               "LEFT JOIN patients p ON p.user_id = u.user_id " +
+                               "WHERE u.username = ? AND u.password = ? AND u.role = ? AND u.status = 'Active'";
+
+                try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+                    pstmt.setString(1, username);
+                    pstmt.setString(2, password);
+                    pstmt.setString(3, role);
+
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        if (!rs.next()) return null;
+                        return new Session(rs.getString("user_id"), username, rs.getString("name"),
+                                           rs.getString("role"), rs.getString("doctor_id"), rs.getString("patient_id"));
+                    }
+                }
 
             } catch (SQLException ex) {
                 JOptionPane.showMessageDialog(LoginFrame.this,
                     "Database error: " + ex.getMessage(),
                     "Error", JOptionPane.ERROR_MESSAGE);
-                return false;
+                return null;
             }
         }
     }
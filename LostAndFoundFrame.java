@@ -6,6 +6,8 @@ import java.awt.event.*;
 import java.sql.*;
 import java.io.*;
 import java.util.List;
+import java.util.Map;
+import java.util.HashMap;
 
 /*
   NOTE:
@@ -16,7 +18,7 @@ import java.util.List;
 
 public class LostAndFoundFrame extends JFrame {
     private JTabbedPane tabbedPane;
-    private DefaultTableModel itemsTableModel;
+    private PagedTableModel itemsTableModel;
     private JComboBox<String> categoryCombo, typeCombo;
     private JTextField searchField;
     private JButton themeToggleButton;
@@ -24,6 +26,20 @@ public class LostAndFoundFrame extends JFrame {
     // Backend manager (thread-safe)
     private final LostAndFoundManager manager = new LostAndFoundManager();
 
+    // All item queries run here, off the EDT; cancelled when the window closes
+    private final BackgroundLoader loader = new BackgroundLoader(this);
+
+    // Remembers how far we have read lost_found_items, so refreshes fetch only changes
+    private final LostAndFoundSync sync = new LostAndFoundSync();
+
+    // Text search runs against this instead of LIKE queries, once the first sync has filled it
+    private final ItemSearchIndex searchIndex = new ItemSearchIndex();
+    private volatile boolean searchIndexReady = false;
+
+    // Likely Lost<->Found pairs, computed in the background as reports come in
+    private final FuzzyMatcher matcher = new FuzzyMatcher();
+    private final MatchingPipeline matching = new MatchingPipeline(manager, matcher);
+
     // Background refresher control
     private volatile boolean refresherRunning = true;
     private Thread refresherThread;
@@ -107,9 +123,25 @@ public class LostAndFoundFrame extends JFrame {
 
         // Table setup
         String[] columns = {"Item ID", "Item Name", "Category", "Type", "Location", "Date", "Status"};
-        itemsTableModel = new DefaultTableModel(columns, 0) {
-            public boolean isCellEditable(int row, int column) { return false; }
-        };
+        // Newest first, a page at a time; item_id breaks ties within a day
+        itemsTableModel = new PagedTableModel(columns, loader,
+            "item_id, item_name, category, item_type, " +
+            "COALESCE(location_lost, location_found) as location, date_reported, status",
+            "lost_found_items", "status = 'Active'", null,
+            null, new String[]{"date_reported", "item_id"}, true,
+            rs -> new Object[]{
+                rs.getString("item_id"),
+                rs.getString("item_name"),
+                rs.getString("category"),
+                rs.getString("item_type"),
+                rs.getString("location"),
+                rs.getString("date_reported"),
+                rs.getString("status")
+            });
+        itemsTableModel.setOnError(e -> {
+            JOptionPane.showMessageDialog(this, "Error loading items: " + e.getMessage());
+            e.printStackTrace();
+        });
         JTable itemsTable = new JTable(itemsTableModel);
         JScrollPane scrollPane = new JScrollPane(itemsTable);
 
@@ -166,6 +198,8 @@ public class LostAndFoundFrame extends JFrame {
 
         JButton uploadButton = new JButton("Upload Image");
         final java.util.List<byte[]> imageDataList = new java.util.ArrayList<>();
+        // Thumbnail JPEG made alongside the preview, stored with the item after it is reported
+        final java.util.List<byte[]> thumbnailList = new java.util.ArrayList<>();
 
         uploadButton.addActionListener(e -> {
             JFileChooser fileChooser = new JFileChooser();
@@ -174,20 +208,32 @@ public class LostAndFoundFrame extends JFrame {
 
             if (fileChooser.showOpenDialog(LostAndFoundFrame.this) == JFileChooser.APPROVE_OPTION) {
                 File file = fileChooser.getSelectedFile();
-                try (FileInputStream fis = new FileInputStream(file)) {
-                    byte[] data = new byte[(int) file.length()];
-                    fis.read(data);
-                    imageDataList.clear();
-                    imageDataList.add(data);
-
-                    ImageIcon icon = new ImageIcon(data);
-                    Image scaledImage = icon.getImage().getScaledInstance(150, 150, Image.SCALE_SMOOTH);
-                    imageLabel.setIcon(new ImageIcon(scaledImage));
-                    imageLabel.setText("");
+                byte[] data;
+                try {
+                    data = java.nio.file.Files.readAllBytes(file.toPath());
                 } catch (IOException ex) {
                     JOptionPane.showMessageDialog(LostAndFoundFrame.this,
                         "Error loading image: " + ex.getMessage());
+                    return;
                 }
+                imageDataList.clear();
+                imageDataList.add(data);
+                thumbnailList.clear();
+                imageLabel.setIcon(null);
+                imageLabel.setText("Loading preview...");
+
+                // Decode once in the background for both the preview and the stored thumbnail.
+                // If the item is submitted first, reportItem makes the thumbnail itself.
+                loader.submit("upload-preview", () -> {
+                    java.awt.image.BufferedImage image = javax.imageio.ImageIO.read(new ByteArrayInputStream(data));
+                    if (image == null) throw new IOException("Unsupported image format");
+                    return new Object[]{ItemImages.encodeThumbnail(image), ItemImages.scaleToFit(image, 150)};
+                }, result -> {
+                    if (imageDataList.isEmpty() || imageDataList.get(0) != data) return; // another file chosen since
+                    thumbnailList.add((byte[]) result[0]);
+                    imageLabel.setIcon(new ImageIcon((Image) result[1]));
+                    imageLabel.setText("");
+                }, ex -> imageLabel.setText("Preview not available"));
             }
         });
 
@@ -245,6 +291,7 @@ public class LostAndFoundFrame extends JFrame {
 
             byte[] imageData = null;
             if (!imageDataList.isEmpty()) imageData = imageDataList.get(0);
+            byte[] thumbnail = thumbnailList.isEmpty() ? null : thumbnailList.get(0);
 
             // Report to DB
             reportItem(itemNameField.getText().trim(),
@@ -253,7 +300,8 @@ public class LostAndFoundFrame extends JFrame {
                     locationField.getText().trim(),
                     contactField.getText().trim(),
                     type,
-                    imageData);
+                    imageData,
+                    thumbnail);
         });
 
         formPanel.add(submitButton, gbc);
@@ -301,6 +349,7 @@ public class LostAndFoundFrame extends JFrame {
             searchField.setText("");
             categoryCombo.setSelectedIndex(0);
             typeCombo.setSelectedIndex(0);
+            loader.cancel("search");
             searchModel.setRowCount(0);
         });
 
@@ -313,14 +362,14 @@ public class LostAndFoundFrame extends JFrame {
 
     // REPORT (DB insert) + also update manager
     private void reportItem(String name, String category, String description, String location,
-                           String contact, String type, byte[] imageData) {
+                           String contact, String type, byte[] imageData, byte[] thumbnail) {
         try (Connection conn = DatabaseConnection.getConnection()) {
-            String itemId = "ITEM" + String.format("%03d", getNextItemId(conn));
+            String itemId = IdAllocator.LOST_FOUND_ITEMS.nextId();
 
             String query = "INSERT INTO lost_found_items (item_id, item_name, category, description, " +
                     "location_" + (type.equals("Lost") ? "lost" : "found") + ", " +
-                    "item_type, image_data, reported_by, contact_info, date_reported, status) " +
-                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, CURDATE(), 'Active')";
+                    "item_type, image_data, image_hash, reported_by, contact_info, date_reported, status) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, CURDATE(), 'Active')";
 
             PreparedStatement pstmt = conn.prepareStatement(query);
             pstmt.setString(1, itemId);
@@ -330,22 +379,36 @@ public class LostAndFoundFrame extends JFrame {
             pstmt.setString(5, location);
             pstmt.setString(6, type);
 
-            if (imageData != null && imageData.length > 0) {
-                pstmt.setBytes(7, imageData);
-            } else {
+            boolean hasImage = imageData != null && imageData.length > 0;
+            if (hasImage && ImageStore.isEnabled()) {
+                // Photo goes to the image store; the row only keeps its hash
                 pstmt.setNull(7, java.sql.Types.BLOB);
+                pstmt.setString(8, ImageStore.put(imageData));
+            } else {
+                if (hasImage) {
+                    pstmt.setBytes(7, imageData);
+                } else {
+                    pstmt.setNull(7, java.sql.Types.BLOB);
+                }
+                pstmt.setNull(8, java.sql.Types.CHAR);
             }
 
-            pstmt.setString(8, "Anonymous");
-            pstmt.setString(9, contact);
+            pstmt.setString(9, "Anonymous");
+            pstmt.setString(10, contact);
 
             int rows = pstmt.executeUpdate();
             pstmt.close();
 
             if (rows > 0) {
                 // Update manager (so in-memory collections are current)
-                Item newItem = new Item(itemId, name, category, type, location, contact);
-                manager.addItem(newItem);
+                Item newItem = new Item(itemId, name, category, type, location, contact,
+                        description, java.time.LocalDate.now().toString());
+                manager.upsert(newItem);
+                searchIndex.upsert(newItem);
+                // Matched once, by the sync pass loadItemsData() starts, which gets this row back
+                if (imageData != null && imageData.length > 0) {
+                    storeThumbnailInBackground(itemId, imageData, thumbnail);
+                }
 
                 JOptionPane.showMessageDialog(this,
                         type + " item reported successfully!\nItem ID: " + itemId,
@@ -353,77 +416,115 @@ public class LostAndFoundFrame extends JFrame {
                 loadItemsData();
             }
 
-        } catch (SQLException e) {
+        } catch (SQLException | IOException e) {
             JOptionPane.showMessageDialog(this, "Error reporting item: " + e.getMessage());
             e.printStackTrace();
         }
     }
 
-    // Load DB data into table and into manager (synchronized)
-    private void loadItemsData() {
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            // Ensure model exists
-            if (itemsTableModel == null) {
-                // if called before browse panel created, initialize a temp model
-                String[] columns = {"Item ID", "Item Name", "Category", "Type", "Location", "Date", "Status"};
-                itemsTableModel = new DefaultTableModel(columns, 0);
-            }
-            itemsTableModel.setRowCount(0);
-
-            String query = "SELECT item_id, item_name, category, item_type, " +
-                    "COALESCE(location_lost, location_found) as location, " +
-                    "date_reported, status FROM lost_found_items WHERE status = 'Active' " +
-                    "ORDER BY date_reported DESC";
-
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery(query);
-
-            // Clear manager then repopulate so in-memory is same as DB
-            // Using synchronized methods of manager
-            synchronized (manager) {
-                // rebuild manager lists: simplest approach is to create new manager items list
-                // but here we'll clear by reflection of methods; since manager doesn't have clear,
-                // we'll create a new manager state by removing via replacing reference is not allowed (final),
-                // so we call getAllItems and remove? To keep it simple and safe: iterate results and add (idempotent).
-                // For correctness, assume DB is source-of-truth; thus we create items and add (manager.addItem is synchronized).
+    // Background stage after upload: reuse the thumbnail made for the preview, else make it now
+    private void storeThumbnailInBackground(String itemId, byte[] imageData, byte[] thumbnail) {
+        loader.submit("thumbnail-" + itemId, () -> {
+            byte[] jpeg = thumbnail;
+            if (jpeg == null) {
+                java.awt.image.BufferedImage image = javax.imageio.ImageIO.read(new ByteArrayInputStream(imageData));
+                if (image == null) return null;
+                jpeg = ItemImages.encodeThumbnail(image);
             }
+            ItemImages.storeThumbnail(itemId, jpeg);
+            ThumbnailCache.put(itemId, javax.imageio.ImageIO.read(new ByteArrayInputStream(jpeg)));
+            return null;
+        }, done -> {
+        }, e -> System.out.println("Error storing thumbnail for " + itemId + ": " + e.getMessage()));
+    }
 
-            while (rs.next()) {
-                String id = rs.getString("item_id");
-                String name = rs.getString("item_name");
-                String cat = rs.getString("category");
-                String typ = rs.getString("item_type");
-                String loc = rs.getString("location");
-                String date = rs.getString("date_reported");
-                String status = rs.getString("status");
-
-                // Add to table model
-                itemsTableModel.addRow(new Object[]{id, name, cat, typ, loc, date, status});
-
-                // Add to manager (synchronized)
-                Item it = new Item(id, name, cat, typ, loc, ""); // contact unknown here
-                manager.addItem(it);
-            }
+    // Reload the table from the first page and pick up any changes for the manager
+    private void loadItemsData() {
+        itemsTableModel.reload();
+        syncChanges();
+    }
 
-            rs.close();
-            stmt.close();
+    // Fetches only items inserted, edited or closed since the last poll and upserts them
+    private void syncChanges() {
+        loader.submit("item-sync", () -> {
+            LostAndFoundSync.Delta delta = sync.poll();
+            List<Item> toMatch = new java.util.ArrayList<>();
+            // Manager is thread-safe, so it is updated here rather than on the EDT
+            for (LostAndFoundSync.Change change : delta.getChanges()) {
+                if (change.isActive()) {
+                    manager.upsert(change.getItem());
+                    searchIndex.upsert(change.getItem());
+                    toMatch.add(change.getItem());
+                } else {
+                    manager.remove(change.getItem().getItemId());
+                    searchIndex.remove(change.getItem().getItemId());
+                    matcher.forget(change.getItem().getItemId());
+                    ThumbnailCache.remove(change.getItem().getItemId());
+                }
+            }
+            if (delta.isFullLoad()) searchIndexReady = true;
+            // Initial load, bulk imports and other clients' reports: one parallel pass
+            matching.submit(toMatch);
+            return delta;
+        }, this::applyToTable,
+        e -> System.out.println("Error syncing lost & found items: " + e.getMessage()));
+    }
 
-            // If browse tab exists, refresh visible table via EDT
-            SwingUtilities.invokeLater(() -> {
-                // find table component and refresh if necessary
-                // The table model is already updated; if visible, Swing will show changes
-            });
+    private void applyToTable(LostAndFoundSync.Delta delta) {
+        // The first poll is the full load; the table already pages itself in
+        if (delta.isFullLoad() || delta.isEmpty()) return;
 
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this, "Error loading items: " + e.getMessage());
-            e.printStackTrace();
+        Map<Object, Object[]> edited = new HashMap<>();
+        boolean moved = false;
+        for (LostAndFoundSync.Change change : delta.getChanges()) {
+            if (change.isActive()) {
+                edited.put(change.getItem().getItemId(), change.getRow());
+            } else {
+                moved = true;
+            }
         }
+        // Edits to rows on screen are patched in place; new or closed items shift rows
+        if (itemsTableModel.updateRows(edited).size() < edited.size()) moved = true;
+        if (moved) itemsTableModel.refreshLoadedPages();
     }
 
     private void performSearch(DefaultTableModel model) {
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            model.setRowCount(0);
+        final String term = searchField.getText().trim();
+        final String category = (String) categoryCombo.getSelectedItem();
+        final String type = (String) typeCombo.getSelectedItem();
 
+        if (!searchIndexReady) {
+            // Index still filling right after startup: ask the database this once
+            searchDatabase(model, term, category, type);
+            return;
+        }
+
+        // In-memory prefix/AND search, fast enough to run right here on the EDT
+        loader.cancel("search");
+        List<Item> results = searchIndex.search(term, category, type);
+        Object[][] rows = new Object[results.size()][];
+        for (int i = 0; i < rows.length; i++) {
+            Item item = results.get(i);
+            rows[i] = new Object[]{
+                    item.getItemId(),
+                    item.getName(),
+                    item.getCategory(),
+                    item.getType(),
+                    item.getLocation(),
+                    item.getDateReported(),
+                    "Active"
+            };
+        }
+        // One table event for the whole result instead of one per row
+        Object[] columns = new Object[model.getColumnCount()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = model.getColumnName(i);
+        }
+        model.setDataVector(rows, columns);
+    }
+
+    private void searchDatabase(DefaultTableModel model, String term, String category, String type) {
+        loader.loadRows("search", model, (conn, sink) -> {
             StringBuilder query = new StringBuilder(
                     "SELECT item_id, item_name, category, item_type, " +
                             "COALESCE(location_lost, location_found) as location, " +
@@ -431,54 +532,53 @@ public class LostAndFoundFrame extends JFrame {
             );
 
             // Build search conditions
-            if (!searchField.getText().trim().isEmpty()) {
+            if (!term.isEmpty()) {
                 query.append("AND (item_name LIKE ? OR description LIKE ?) ");
             }
-            if (!categoryCombo.getSelectedItem().equals("All")) {
+            if (!category.equals("All")) {
                 query.append("AND category = ? ");
             }
-            if (!typeCombo.getSelectedItem().equals("All")) {
+            if (!type.equals("All")) {
                 query.append("AND item_type = ? ");
             }
 
             query.append("ORDER BY date_reported DESC");
 
-            PreparedStatement pstmt = conn.prepareStatement(query.toString());
-            int paramIndex = 1;
+            // At most 8 distinct SQL strings here, so each filter combination stays cached
+            try (PreparedStatement pstmt = conn.prepareStatement(query.toString())) {
+                int paramIndex = 1;
 
-            if (!searchField.getText().trim().isEmpty()) {
-                String searchTerm = "%" + searchField.getText().trim() + "%";
-                pstmt.setString(paramIndex++, searchTerm);
-                pstmt.setString(paramIndex++, searchTerm);
-            }
-            if (!categoryCombo.getSelectedItem().equals("All")) {
-                pstmt.setString(paramIndex++, (String) categoryCombo.getSelectedItem());
-            }
-            if (!typeCombo.getSelectedItem().equals("All")) {
-                pstmt.setString(paramIndex++, (String) typeCombo.getSelectedItem());
-            }
+                if (!term.isEmpty()) {
+                    String searchTerm = "%" + term + "%";
+                    pstmt.setString(paramIndex++, searchTerm);
+                    pstmt.setString(paramIndex++, searchTerm);
+                }
+                if (!category.equals("All")) {
+                    pstmt.setString(paramIndex++, category);
+                }
+                if (!type.equals("All")) {
+                    pstmt.setString(paramIndex++, type);
+                }
 
-            ResultSet rs = pstmt.executeQuery();
-
-            while (rs.next()) {
-                model.addRow(new Object[]{
-                        rs.getString("item_id"),
-                        rs.getString("item_name"),
-                        rs.getString("category"),
-                        rs.getString("item_type"),
-                        rs.getString("location"),
-                        rs.getString("date_reported"),
-                        rs.getString("status")
-                });
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        boolean more = sink.add(new Object[]{
+                                rs.getString("item_id"),
+                                rs.getString("item_name"),
+                                rs.getString("category"),
+                                rs.getString("item_type"),
+                                rs.getString("location"),
+                                rs.getString("date_reported"),
+                                rs.getString("status")
+                        });
+                        if (!more) break;
+                    }
+                }
             }
-
-            rs.close();
-            pstmt.close();
-
-        } catch (SQLException e) {
+        }, e -> {
             JOptionPane.showMessageDialog(this, "Search error: " + e.getMessage());
             e.printStackTrace();
-        }
+        });
     }
 
     private void viewItemDetails(JTable table) {
@@ -490,119 +590,134 @@ public class LostAndFoundFrame extends JFrame {
 
         String itemId = (String) table.getValueAt(selectedRow, 0);
 
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            String query = "SELECT * FROM lost_found_items WHERE item_id = ?";
-            PreparedStatement pstmt = conn.prepareStatement(query);
-            pstmt.setString(1, itemId);
-            ResultSet rs = pstmt.executeQuery();
-
-            if (rs.next()) {
-                showItemDetailsDialog(rs);
-            }
-
-            rs.close();
-            pstmt.close();
-
-        } catch (SQLException e) {
+        // Metadata only; the image is fetched separately once the dialog is up
+        loader.submit("details", () -> loadItemDetails(itemId), details -> {
+            if (details != null) showItemDetailsDialog(details);
+        }, e -> {
             JOptionPane.showMessageDialog(this, "Error loading item details: " + e.getMessage());
             e.printStackTrace();
-        }
+        });
     }
 
-    private void showItemDetailsDialog(ResultSet rs) {
-        try {
-            JDialog detailsDialog = new JDialog(this, "Item Details", true);
-            detailsDialog.setSize(500, 600);
-            detailsDialog.setLocationRelativeTo(this);
-
-            JPanel mainPanel = new JPanel(new BorderLayout(10, 10));
-            mainPanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
-
-            // Item details
-            JPanel detailsPanel = new JPanel(new GridLayout(0, 2, 10, 10));
-            detailsPanel.add(new JLabel("Item ID:"));
-            detailsPanel.add(new JLabel(rs.getString("item_id")));
-            detailsPanel.add(new JLabel("Item Name:"));
-            detailsPanel.add(new JLabel(rs.getString("item_name")));
-            detailsPanel.add(new JLabel("Category:"));
-            detailsPanel.add(new JLabel(rs.getString("category")));
-            detailsPanel.add(new JLabel("Type:"));
-            detailsPanel.add(new JLabel(rs.getString("item_type")));
-            detailsPanel.add(new JLabel("Location:"));
-            detailsPanel.add(new JLabel(rs.getString("item_type").equals("Lost") ?
-                    rs.getString("location_lost") : rs.getString("location_found")));
-            detailsPanel.add(new JLabel("Date Reported:"));
-            detailsPanel.add(new JLabel(rs.getString("date_reported")));
-            detailsPanel.add(new JLabel("Description:"));
-            JTextArea descArea = new JTextArea(rs.getString("description"), 3, 20);
-            descArea.setEditable(false);
-            detailsPanel.add(new JScrollPane(descArea));
-            detailsPanel.add(new JLabel("Contact Info:"));
-            detailsPanel.add(new JLabel(rs.getString("contact_info")));
-
-            // Image display
-            JLabel imageLabel = new JLabel("No Image Available", JLabel.CENTER);
-            imageLabel.setBorder(BorderFactory.createLineBorder(Color.GRAY));
-            imageLabel.setPreferredSize(new Dimension(200, 200));
-
-            final byte[] imageData = rs.getBytes("image_data");
-            final String itemName = rs.getString("item_name");
-
-            if (imageData != null && imageData.length > 0) {
-                ImageIcon icon = new ImageIcon(imageData);
-                Image scaledImage = icon.getImage().getScaledInstance(200, 200, Image.SCALE_SMOOTH);
-                imageLabel.setIcon(new ImageIcon(scaledImage));
-                imageLabel.setText("");
-
-                JButton downloadButton = new JButton("Download Image");
-                downloadButton.addActionListener(e -> downloadImage(imageData, itemName));
-                detailsPanel.add(new JLabel(""));
-                detailsPanel.add(downloadButton);
+    private ItemDetails loadItemDetails(String itemId) throws SQLException {
+        // Explicit columns: image_data is never read here, only whether there is one
+        String query = "SELECT item_id, item_name, category, item_type, location_lost, location_found, " +
+                "date_reported, description, contact_info, " +
+                "(image_data IS NOT NULL OR image_hash IS NOT NULL) AS has_image " +
+                "FROM lost_found_items WHERE item_id = ?";
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+                pstmt.setString(1, itemId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (!rs.next()) return null;
+                    ItemDetails d = new ItemDetails();
+                    d.itemId = rs.getString("item_id");
+                    d.name = rs.getString("item_name");
+                    d.category = rs.getString("category");
+                    d.type = rs.getString("item_type");
+                    d.location = "Lost".equals(d.type) ? rs.getString("location_lost") : rs.getString("location_found");
+                    d.dateReported = rs.getString("date_reported");
+                    d.description = rs.getString("description");
+                    d.contact = rs.getString("contact_info");
+                    d.hasImage = rs.getBoolean("has_image");
+                    return d;
+                }
             }
+        }
+    }
 
-            mainPanel.add(detailsPanel, BorderLayout.CENTER);
-            mainPanel.add(imageLabel, BorderLayout.SOUTH);
+    private void showItemDetailsDialog(ItemDetails d) {
+        JDialog detailsDialog = new JDialog(this, "Item Details", true);
+        detailsDialog.setSize(500, 600);
+        detailsDialog.setLocationRelativeTo(this);
+
+        JPanel mainPanel = new JPanel(new BorderLayout(10, 10));
+        mainPanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+
+        // Item details
+        JPanel detailsPanel = new JPanel(new GridLayout(0, 2, 10, 10));
+        detailsPanel.add(new JLabel("Item ID:"));
+        detailsPanel.add(new JLabel(d.itemId));
+        detailsPanel.add(new JLabel("Item Name:"));
+        detailsPanel.add(new JLabel(d.name));
+        detailsPanel.add(new JLabel("Category:"));
+        detailsPanel.add(new JLabel(d.category));
+        detailsPanel.add(new JLabel("Type:"));
+        detailsPanel.add(new JLabel(d.type));
+        detailsPanel.add(new JLabel("Location:"));
+        detailsPanel.add(new JLabel(d.location));
+        detailsPanel.add(new JLabel("Date Reported:"));
+        detailsPanel.add(new JLabel(d.dateReported));
+        detailsPanel.add(new JLabel("Description:"));
+        JTextArea descArea = new JTextArea(d.description, 3, 20);
+        descArea.setEditable(false);
+        detailsPanel.add(new JScrollPane(descArea));
+        detailsPanel.add(new JLabel("Contact Info:"));
+        detailsPanel.add(new JLabel(d.contact));
+        detailsPanel.add(new JLabel("Possible Matches:"));
+        JTextArea matchesArea = new JTextArea(describeMatches(d.itemId), 3, 20);
+        matchesArea.setEditable(false);
+        detailsPanel.add(new JScrollPane(matchesArea));
+
+        // Image display
+        JLabel imageLabel = new JLabel("No Image Available", JLabel.CENTER);
+        imageLabel.setBorder(BorderFactory.createLineBorder(Color.GRAY));
+        imageLabel.setPreferredSize(new Dimension(200, 200));
+
+        if (d.hasImage) {
+            imageLabel.setText("Loading image...");
+            // Thumbnail from the cache (instant on reopen) or the thumbnail column, never the full photo
+            loader.submit("image", () -> ItemImages.thumbnail(d.itemId), image -> {
+                if (image != null) {
+                    imageLabel.setIcon(new ImageIcon(image));
+                    imageLabel.setText("");
+                } else {
+                    imageLabel.setText("Image could not be read");
+                }
+            }, e -> imageLabel.setText("Error loading image"));
 
-            detailsDialog.add(mainPanel);
-            detailsDialog.setVisible(true);
+            JButton downloadButton = new JButton("Download Image");
+            downloadButton.addActionListener(e -> downloadImage(d.itemId, d.name));
+            detailsPanel.add(new JLabel(""));
+            detailsPanel.add(downloadButton);
+        }
 
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this, "Error displaying item details: " + e.getMessage());
-            e.printStackTrace();
+        mainPanel.add(detailsPanel, BorderLayout.CENTER);
+        mainPanel.add(imageLabel, BorderLayout.SOUTH);
+
+        detailsDialog.add(mainPanel);
+        detailsDialog.setVisible(true);
+    }
+
+    private String describeMatches(String itemId) {
+        List<FuzzyMatcher.Match> matches = matcher.getMatches(itemId);
+        if (matches.isEmpty()) return "None found yet";
+        StringBuilder sb = new StringBuilder();
+        for (FuzzyMatcher.Match m : matches) {
+            Item other = m.getItem();
+            sb.append(String.format("%s - %s (%s, %.0f%%)%n", other.getItemId(), other.getName(),
+                    other.getType(), m.getScore() * 100));
         }
+        return sb.toString().trim();
     }
 
-    private void downloadImage(byte[] imageData, String itemName) {
+    private void downloadImage(String itemId, String itemName) {
         JFileChooser fileChooser = new JFileChooser();
         fileChooser.setSelectedFile(new File(itemName + ".jpg"));
 
         if (fileChooser.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
             File file = fileChooser.getSelectedFile();
-            try (FileOutputStream fos = new FileOutputStream(file)) {
-                fos.write(imageData);
-                JOptionPane.showMessageDialog(this, "Image downloaded successfully!");
-            } catch (IOException e) {
-                JOptionPane.showMessageDialog(this, "Error downloading image: " + e.getMessage());
-            }
+            // Streamed from the database straight into the file, off the EDT
+            loader.submit("download", () -> ItemImages.download(itemId, file.toPath()),
+                bytes -> JOptionPane.showMessageDialog(this, "Image downloaded successfully!"),
+                e -> JOptionPane.showMessageDialog(this, "Error downloading image: " + e.getMessage()));
         }
     }
 
-    // getNextItemId variant that uses passed Connection (faster and cleaner)
-    private int getNextItemId(Connection conn) {
-        try (Statement stmt = conn.createStatement()) {
-            ResultSet rs = stmt.executeQuery(
-                    "SELECT MAX(CAST(SUBSTRING(item_id, 5) AS UNSIGNED)) FROM lost_found_items");
-
-            int maxId = 0;
-            if (rs.next()) {
-                maxId = rs.getInt(1);
-            }
-
-            rs.close();
-            return maxId + 1;
-        } catch (SQLException e) {
-            return 1;
-        }
+    // Row of lost_found_items minus the image bytes
+    private static class ItemDetails {
+        String itemId, name, category, type, location, dateReported, description, contact;
+        boolean hasImage;
     }
 
     // Start background thread to refresh data every 5 seconds
@@ -614,8 +729,8 @@ public class LostAndFoundFrame extends JFrame {
                     Thread.sleep(5000);
                 } catch (InterruptedException ignored) {
                 }
-                // Refresh data on EDT
-                SwingUtilities.invokeLater(this::loadItemsData);
+                // One indexed query; returns nothing unless something changed
+                syncChanges();
             }
         }, "LF-Refresher");
         refresherThread.setDaemon(true);
@@ -624,6 +739,7 @@ public class LostAndFoundFrame extends JFrame {
 
     private void stopBackgroundRefresher() {
         refresherRunning = false;
+        matching.shutdown();
         if (refresherThread != null) refresherThread.interrupt();
     }
 }
@@ -9,6 +9,8 @@ public class LostAndFoundFrameThread extends JFrame {
     private JList<String> list = new JList<>(listModel);
 
     private volatile boolean running = true;
+    // Version of the manager the list currently shows
+    private long shownVersion = -1;
 
     public LostAndFoundFrameThread() {
         setTitle("Lost & Found - Multithreaded Version");
@@ -37,9 +39,14 @@ public class LostAndFoundFrameThread extends JFrame {
     }
 
     private void refreshList() {
+        // Lock-free read on the updater thread; nothing to redraw if no write happened
+        LostAndFoundManager.Snapshot snapshot = manager.snapshot();
+        if (snapshot.getVersion() == shownVersion) return;
+        shownVersion = snapshot.getVersion();
+
         SwingUtilities.invokeLater(() -> {
             listModel.clear();
-            List<Item> all = manager.getAllItems();
+            List<Item> all = snapshot.getAllItems();
             for (Item item : all) {
                 listModel.addElement(item.getItemId() + " - " + item.getName());
             }
@@ -1,28 +1,119 @@
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
+/*
+  Items are kept in a concurrent map keyed by item id, so lookups are O(1)
+  and writes are idempotent upserts. Readers never take a lock.
+
+  List reads are served from an immutable Snapshot tagged with a version
+  number, which also carries the secondary indexes by category and type.
+  A snapshot is built at most once per version, the first time somebody
+  asks for it after a write, and is then shared by every reader until the
+  next write - no copying per call.
+*/
 public class LostAndFoundManager {
 
-    private final List<Item> items = new ArrayList<>();
-    private final Map<String, List<Item>> categorizedItems = new HashMap<>();
+    private final Map<String, Item> itemsById = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+    private volatile Snapshot snapshot = new Snapshot(0, Collections.emptyList());
+
+    // Kept for existing callers; same as upsert
+    public void addItem(Item item) {
+        upsert(item);
+    }
+
+    // Insert or replace by item id, so repeated syncs never create duplicates
+    public void upsert(Item item) {
+        itemsById.put(item.getItemId(), item);
+        version.incrementAndGet();
+    }
+
+    public void remove(String itemId) {
+        if (itemsById.remove(itemId) != null) {
+            version.incrementAndGet();
+        }
+    }
+
+    public void clear() {
+        itemsById.clear();
+        version.incrementAndGet();
+    }
 
-    // synchronized for thread safety
-    public synchronized void addItem(Item item) {
-        items.add(item);
+    // O(1), straight from the live map
+    public Optional<Item> searchById(String itemId) {
+        return Optional.ofNullable(itemsById.get(itemId));
+    }
+
+    public int size() {
+        return itemsById.size();
+    }
 
-        categorizedItems.computeIfAbsent(item.getCategory(), c -> new ArrayList<>()).add(item);
+    // Bumped by every write; cheap way for pollers to see whether anything changed
+    public long getVersion() {
+        return version.get();
     }
 
-    public synchronized List<Item> getAllItems() {
-        return new ArrayList<>(items);
+    // Unmodifiable; the same list is returned until the next write
+    public List<Item> getAllItems() {
+        return snapshot().getAllItems();
     }
 
-    public synchronized List<Item> getItemsByCategory(String category) {
-        return new ArrayList<>(categorizedItems.getOrDefault(category, Collections.emptyList()));
+    public List<Item> getItemsByCategory(String category) {
+        return snapshot().getItemsByCategory(category);
     }
 
-    public synchronized Optional<Item> searchById(String itemId) {
-        return items.stream()
-            .filter(i -> i.getItemId().equals(itemId))
-            .findFirst();
+    public List<Item> getItemsByType(String type) {
+        return snapshot().getItemsByType(type);
+    }
+
+    public Snapshot snapshot() {
+        Snapshot current = snapshot;
+        long v = version.get();
+        if (current.version == v) return current;
+
+        // Weakly consistent iteration: never blocks writers, never throws.
+        // Writes racing with the copy bump the version, so they are picked up next time.
+        Snapshot fresh = new Snapshot(v, new ArrayList<>(itemsById.values()));
+        synchronized (this) {
+            // Another reader may have published a newer one meanwhile
+            if (snapshot.version < fresh.version) snapshot = fresh;
+            return snapshot;
+        }
+    }
+
+    // Items with no category/type are grouped under ""
+    private static String key(String value) {
+        return value == null ? "" : value;
+    }
+
+    // Immutable view of the manager at one version
+    public static class Snapshot {
+        private final long version;
+        private final List<Item> allItems;
+        private final Map<String, List<Item>> byCategory = new HashMap<>();
+        private final Map<String, List<Item>> byType = new HashMap<>();
+
+        Snapshot(long version, List<Item> items) {
+            this.version = version;
+            this.allItems = Collections.unmodifiableList(items);
+            for (Item item : items) {
+                byCategory.computeIfAbsent(key(item.getCategory()), k -> new ArrayList<>()).add(item);
+                byType.computeIfAbsent(key(item.getType()), k -> new ArrayList<>()).add(item);
+            }
+            byCategory.replaceAll((k, list) -> Collections.unmodifiableList(list));
+            byType.replaceAll((k, list) -> Collections.unmodifiableList(list));
+        }
+
+        public long getVersion() { return version; }
+        public List<Item> getAllItems() { return allItems; }
+
+        public List<Item> getItemsByCategory(String category) {
+            return byCategory.getOrDefault(key(category), Collections.emptyList());
+        }
+
+        public List<Item> getItemsByType(String type) {
+            return byType.getOrDefault(key(type), Collections.emptyList());
+        }
     }
 }
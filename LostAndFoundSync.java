@@ -0,0 +1,125 @@
+// LostAndFoundSync.java - Incremental sync of lost_found_items using a last_modified watermark
+import java.sql.*;
+import java.util.*;
+
+/*
+  The first poll reads every Active item. After that each poll asks only for
+  rows whose last_modified is past the watermark, via an index on
+  last_modified, so an idle poll is one index probe that returns nothing.
+
+  The watermark trails the database clock by WATERMARK_LAG_MS: a row written
+  by a transaction that commits late (with a timestamp slightly older than
+  rows we already saw) is still picked up on a following poll. Rows inside
+  the lag window may be delivered twice, which is harmless because changes
+  are applied as upserts.
+
+  Items are closed by changing status, never deleted, so a change with a
+  status other than Active means "remove from the live view".
+*/
+public class LostAndFoundSync {
+    private static final long WATERMARK_LAG_MS = 2_000;
+
+    private static final String SELECT_COLUMNS =
+        "SELECT item_id, item_name, category, item_type, " +
+        "COALESCE(location_lost, location_found) as location, contact_info, description, " +
+        "date_reported, status, last_modified, NOW(3) as db_now FROM lost_found_items ";
+
+    private Timestamp watermark = null;
+
+    public static class Change {
+        private final Item item;
+        private final Object[] row;
+        private final boolean active;
+
+        Change(Item item, Object[] row, boolean active) {
+            this.item = item;
+            this.row = row;
+            this.active = active;
+        }
+
+        public Item getItem() { return item; }
+        // Same columns as the browse table
+        public Object[] getRow() { return row; }
+        public boolean isActive() { return active; }
+    }
+
+    public static class Delta {
+        private final boolean fullLoad;
+        private final List<Change> changes;
+
+        Delta(boolean fullLoad, List<Change> changes) {
+            this.fullLoad = fullLoad;
+            this.changes = changes;
+        }
+
+        // True for the first poll, which returns every Active item
+        public boolean isFullLoad() { return fullLoad; }
+        public List<Change> getChanges() { return changes; }
+        public boolean isEmpty() { return changes.isEmpty(); }
+    }
+
+    public synchronized Delta poll() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            if (conn == null) throw new SQLException("No database connection available");
+            boolean fullLoad = watermark == null;
+            Timestamp loadStart = null;
+            if (fullLoad) {
+                // Anything modified after this point is picked up again by the next poll
+                try (Statement stmt = conn.createStatement();
+                     ResultSet rs = stmt.executeQuery("SELECT NOW(3)")) {
+                    rs.next();
+                    loadStart = rs.getTimestamp(1);
+                }
+            }
+            String query = fullLoad
+                ? SELECT_COLUMNS + "WHERE status = 'Active'"
+                : SELECT_COLUMNS + "WHERE last_modified > ? ORDER BY last_modified";
+
+            List<Change> changes = new ArrayList<>();
+            Timestamp maxSeen = null;
+            Timestamp dbNow = null;
+            try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+                if (!fullLoad) pstmt.setTimestamp(1, watermark);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        changes.add(toChange(rs));
+                        Timestamp modified = rs.getTimestamp("last_modified");
+                        if (modified != null && (maxSeen == null || modified.after(maxSeen))) {
+                            maxSeen = modified;
+                        }
+                        dbNow = rs.getTimestamp("db_now");
+                    }
+                }
+            }
+
+            if (fullLoad) {
+                watermark = new Timestamp(loadStart.getTime() - WATERMARK_LAG_MS);
+            } else if (maxSeen != null) {
+                // Advance to the newest change, but never closer than the lag to "now"
+                Timestamp settled = new Timestamp(dbNow.getTime() - WATERMARK_LAG_MS);
+                Timestamp next = maxSeen.before(settled) ? maxSeen : settled;
+                if (next.after(watermark)) watermark = next;
+            }
+            return new Delta(fullLoad, changes);
+        }
+    }
+
+    // Forget the watermark; the next poll is a full load again
+    public synchronized void reset() {
+        watermark = null;
+    }
+
+    private static Change toChange(ResultSet rs) throws SQLException {
+        String id = rs.getString("item_id");
+        String name = rs.getString("item_name");
+        String cat = rs.getString("category");
+        String typ = rs.getString("item_type");
+        String loc = rs.getString("location");
+        String date = rs.getString("date_reported");
+        String status = rs.getString("status");
+        Item item = new Item(id, name, cat, typ, loc, rs.getString("contact_info"),
+                             rs.getString("description"), date);
+        Object[] row = {id, name, cat, typ, loc, date, status};
+        return new Change(item, row, "Active".equals(status));
+    }
+}
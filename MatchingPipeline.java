@@ -0,0 +1,187 @@
+// MatchingPipeline.java - Pairs each new Lost report with Found items (and vice versa) as it arrives
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+
+/*
+  For every new item only the plausible candidates are scored: opposite
+  type, same category (straight from the manager's category index) and
+  reported within WINDOW_DAYS of it. Candidates are bucketed by
+  category + type and sorted by date, so the window is a binary search.
+
+  Items arrive through the sync pass (LostAndFoundFrame.syncChanges), which
+  also carries this client's own reports. Small batches are matched on the
+  background "LF-Matcher" thread; larger ones (initial load, bulk imports)
+  are split into a fork-join pass across cores. Each item keeps only its
+  top-k, which FuzzyMatcher stores for both sides of the pair.
+*/
+public class MatchingPipeline {
+    private static final int WINDOW_DAYS = Integer.getInteger("hms.matchWindowDays", 30);
+    // Items per fork-join leaf
+    private static final int LEAF_SIZE = 32;
+
+    private final LostAndFoundManager manager;
+    private final FuzzyMatcher matcher;
+    private final ForkJoinPool pool =
+        new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+    // Runs one batch at a time, in arrival order
+    private final ExecutorService trigger = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "LF-Matcher");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // Rebuilt only when the manager's snapshot version changes
+    private volatile CandidateIndex index;
+
+    public MatchingPipeline(LostAndFoundManager manager, FuzzyMatcher matcher) {
+        this.manager = manager;
+        this.matcher = matcher;
+    }
+
+    public void submit(List<Item> items) {
+        if (items.isEmpty()) return;
+        trigger.submit(() -> {
+            try {
+                run(items);
+            } catch (RuntimeException e) {
+                System.out.println("Error matching lost & found items: " + e.getMessage());
+            }
+        });
+    }
+
+    // Matches items now, on the calling thread plus the fork-join pool
+    public void run(List<Item> items) {
+        long start = System.currentTimeMillis();
+        CandidateIndex candidates = candidateIndex();
+        if (items.size() <= LEAF_SIZE) {
+            matchRange(items, 0, items.size(), candidates);
+        } else {
+            pool.invoke(new MatchTask(items, 0, items.size(), candidates));
+            System.out.println("Matched " + items.size() + " lost & found items in " +
+                               (System.currentTimeMillis() - start) + " ms");
+        }
+    }
+
+    public void shutdown() {
+        trigger.shutdownNow();
+        pool.shutdownNow();
+    }
+
+    private void matchRange(List<Item> items, int from, int to, CandidateIndex candidates) {
+        for (int i = from; i < to; i++) {
+            Item item = items.get(i);
+            matcher.store(item, matcher.rankSequential(item, candidates.forItem(item), FuzzyMatcher.TOP_K));
+        }
+    }
+
+    private CandidateIndex candidateIndex() {
+        LostAndFoundManager.Snapshot snapshot = manager.snapshot();
+        CandidateIndex current = index;
+        if (current == null || current.version != snapshot.getVersion()) {
+            current = new CandidateIndex(snapshot);
+            index = current;
+        }
+        return current;
+    }
+
+    private class MatchTask extends RecursiveAction {
+        private final List<Item> items;
+        private final int from, to;
+        private final CandidateIndex candidates;
+
+        MatchTask(List<Item> items, int from, int to, CandidateIndex candidates) {
+            this.items = items;
+            this.from = from;
+            this.to = to;
+            this.candidates = candidates;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= LEAF_SIZE) {
+                matchRange(items, from, to, candidates);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new MatchTask(items, from, mid, candidates),
+                      new MatchTask(items, mid, to, candidates));
+        }
+    }
+
+    // Items of one snapshot, grouped by category + type, each group sorted by date
+    private static class CandidateIndex {
+        final long version;
+        private final LostAndFoundManager.Snapshot snapshot;
+        private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+        CandidateIndex(LostAndFoundManager.Snapshot snapshot) {
+            this.version = snapshot.getVersion();
+            this.snapshot = snapshot;
+        }
+
+        List<Item> forItem(Item item) {
+            String wanted = "Lost".equalsIgnoreCase(item.getType()) ? "Found" : "Lost";
+            // Buckets are built lazily, once per category/type actually asked for
+            Bucket bucket = buckets.computeIfAbsent(item.getCategory() + "|" + wanted,
+                k -> new Bucket(snapshot.getItemsByCategory(item.getCategory()), wanted));
+            long day = epochDay(item.getDateReported());
+            if (day == Long.MIN_VALUE) return bucket.all();
+            return bucket.between(day - WINDOW_DAYS, day + WINDOW_DAYS);
+        }
+    }
+
+    private static class Bucket {
+        private final Item[] items;
+        private final long[] days;
+        // Items without a usable date are always candidates
+        private final List<Item> undated = new ArrayList<>();
+
+        Bucket(List<Item> sameCategory, String type) {
+            List<Item> dated = new ArrayList<>();
+            for (Item i : sameCategory) {
+                if (!type.equalsIgnoreCase(i.getType())) continue;
+                if (epochDay(i.getDateReported()) == Long.MIN_VALUE) undated.add(i);
+                else dated.add(i);
+            }
+            dated.sort(Comparator.comparingLong(i -> epochDay(i.getDateReported())));
+            items = dated.toArray(new Item[0]);
+            days = new long[items.length];
+            for (int i = 0; i < items.length; i++) days[i] = epochDay(items[i].getDateReported());
+        }
+
+        List<Item> between(long fromDay, long toDay) {
+            int lo = lowerBound(fromDay);
+            int hi = lowerBound(toDay + 1);
+            List<Item> out = new ArrayList<>(hi - lo + undated.size());
+            out.addAll(Arrays.asList(items).subList(lo, hi));
+            out.addAll(undated);
+            return out;
+        }
+
+        List<Item> all() {
+            List<Item> out = new ArrayList<>(Arrays.asList(items));
+            out.addAll(undated);
+            return out;
+        }
+
+        // First index whose day is >= day
+        private int lowerBound(long day) {
+            int lo = 0, hi = days.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (days[mid] < day) lo = mid + 1; else hi = mid;
+            }
+            return lo;
+        }
+    }
+
+    private static long epochDay(String date) {
+        if (date == null || date.length() < 10) return Long.MIN_VALUE;
+        try {
+            return LocalDate.parse(date.substring(0, 10)).toEpochDay();
+        } catch (RuntimeException e) {
+            return Long.MIN_VALUE;
+        }
+    }
+}
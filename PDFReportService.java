@@ -1,325 +1,466 @@
-// PDFReportService.java - FINAL FIXED VERSION
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.pdmodel.PDPage;
-import org.apache.pdfbox.pdmodel.PDPageContentStream;
-import org.apache.pdfbox.pdmodel.font.PDType1Font;
-import javax.swing.*;
-import java.awt.*;
+// PDFReportService.java - Appointment reports, streamed from the database straight into paginated PDFs
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.multipdf.PDFMergerUtility;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.sql.*;
 import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
+/*
+  Small reports are written by one PdfTableWriter on the calling thread.
+  Large reports are split into contiguous date ranges of about equal row
+  count (a daily report is one date, so it always renders serially); each range is queried and rendered
+  into its own temp PDF on the RENDER_THREADS pool and the parts are merged
+  in date order, so the result reads the same as a serial render.
+
+  The "all" report takes closed months from ReportMonthCache instead, so
+  only months whose appointments changed, plus the current and future
+  months, are queried again.
+*/
 public class PDFReportService {
-    
-    public void generateAppointmentReport(String reportType) {
+    // Integer.MIN_VALUE makes Connector/J stream rows one at a time instead of buffering the
+    // whole result; a positive value needs useCursorFetch=true in the JDBC URL
+    private static final int REPORT_FETCH_SIZE = Integer.getInteger("hms.reportFetchSize", Integer.MIN_VALUE);
+
+    // Rows between progress updates / cancellation checks
+    private static final int PROGRESS_INTERVAL = 500;
+
+    // Below this many rows splitting costs more than it saves
+    private static final int PARALLEL_MIN_ROWS = Integer.getInteger("hms.reportParallelRows", 50_000);
+    // Each part streams over its own pooled connection, so the default stays well under the pool size
+    private static final int RENDER_THREADS = Integer.getInteger("hms.reportRenderThreads",
+        Math.min(4, Runtime.getRuntime().availableProcessors()));
+    // A few parts per thread so one slow range does not leave the others idle
+    private static final int PARTS_PER_THREAD = 2;
+
+    private static final ExecutorService RENDER_POOL = Executors.newFixedThreadPool(Math.max(1, RENDER_THREADS), r -> {
+        Thread t = new Thread(r, "Report-Render");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // Half-open date ranges on the bare column, so the date indexes can be used
+    // (MONTH(appointment_date) = ... would have to evaluate every row)
+    private static final String MONTH_START = "(CURDATE() - INTERVAL (DAYOFMONTH(CURDATE()) - 1) DAY)";
+
+    private static final DateTimeFormatter MONTH_LABEL = DateTimeFormatter.ofPattern("MMMM yyyy");
+
+    private static final String[] COLUMNS = {"ID", "Patient", "Doctor", "Date", "Time", "Status"};
+    private static final float[] COLUMN_X = {50, 80, 180, 280, 350, 400};
+    private static final int[] COLUMN_CHARS = {8, 15, 15, 12, 10, 20};
+
+    // CORRECTED QUERIES - USING USERS TABLE FOR NAMES
+    private static final String DATA_SELECT = "SELECT a.appointment_id, " +
+                                              "u_p.name as patient_name, " +
+                                              "u_d.name as doctor_name, " +
+                                              "a.appointment_date, " +
+                                              "a.appointment_time, " +
+                                              "a.status " +
+                                              "FROM appointments a " +
+                                              "JOIN patients p ON a.patient_id = p.patient_id " +
+                                              "JOIN users u_p ON p.user_id = u_p.user_id " +
+                                              "JOIN doctors d ON a.doctor_id = d.doctor_id " +
+                                              "JOIN users u_d ON d.user_id = u_d.user_id ";
+
+    private static final String COUNT_SELECT = "SELECT COUNT(*) as total, " +
+                                               "SUM(CASE WHEN status = 'Scheduled' THEN 1 ELSE 0 END) as scheduled, " +
+                                               "SUM(CASE WHEN status = 'Confirmed' THEN 1 ELSE 0 END) as confirmed, " +
+                                               "SUM(CASE WHEN status = 'Completed' THEN 1 ELSE 0 END) as completed " +
+                                               "FROM appointments ";
+
+    // Same key for requests that would produce the same file (see ReportJobQueue)
+    public static String jobKey(String reportType) {
+        return "appointments-" + reportType + "-" + new SimpleDateFormat("yyyyMMdd").format(new java.util.Date());
+    }
+
+    // After appointments or the names shown on them change: stop handing out files rendered before it
+    public static void reportDataChanged() {
+        for (String reportType : new String[]{"daily", "monthly", "all"}) {
+            ReportJobQueue.invalidate(jobKey(reportType));
+        }
+    }
+
+    // Writes the report to ~/Downloads and returns the file; no UI; runs on a ReportJobQueue worker
+    public File writeAppointmentReport(String reportType, ReportJobQueue.Progress progress)
+            throws SQLException, IOException {
+        ReportSpec spec = ReportSpec.of(reportType);
+        String downloadsPath = System.getProperty("user.home") + "/Downloads/";
+        File file = new File(downloadsPath + spec.fileName);
+
+        if (spec.monthCached) {
+            long start = System.currentTimeMillis();
+            writeWithCachedMonths(spec, file, progress);
+            System.out.println("Report " + file.getName() + " written in " + (System.currentTimeMillis() - start) + " ms");
+            return file;
+        }
+
+        Summary summary;
+        List<String[]> parts = null;
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            if (conn == null) throw new SQLException("No database connection available");
+            summary = readSummary(conn, spec.countFilter);
+            if (RENDER_THREADS > 1 && summary.total >= PARALLEL_MIN_ROWS) {
+                parts = planParts(conn, spec, summary.total);
+            }
+        }
+
+        long start = System.currentTimeMillis();
+        if (parts == null || parts.size() < 2) {
+            writeSerial(spec, summary, file, progress);
+        } else {
+            writeParallel(spec, summary, parts, file, progress);
+        }
+        progress.update(summary.total, summary.total);
+        System.out.println("Report " + file.getName() + " written in " + (System.currentTimeMillis() - start) + " ms" +
+                           (parts == null || parts.size() < 2 ? "" : " (" + parts.size() + " parallel parts)"));
+        return file;
+    }
+
+    // Closed months come from ReportMonthCache (stale or missing ones are rebuilt in parallel);
+    // only the current and future months are read live
+    private void writeWithCachedMonths(ReportSpec spec, File file, ReportJobQueue.Progress progress)
+            throws SQLException, IOException {
+        Date liveFrom = Date.valueOf(ReportMonthCache.currentMonthStart());
+        String liveFilter = "(a.appointment_date >= ? OR a.appointment_date IS NULL)";
+        List<ReportMonthCache.Month> months;
+        Summary summary;
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            if (conn == null) throw new SQLException("No database connection available");
+            months = ReportMonthCache.closedMonths(conn);
+            summary = readSummary(conn, "(appointment_date >= ? OR appointment_date IS NULL)", liveFrom);
+        }
+
+        ReportMonthCache.Entry[] entries = new ReportMonthCache.Entry[months.size()];
+        List<Integer> stale = new ArrayList<>();
+        for (int i = 0; i < months.size(); i++) {
+            entries[i] = ReportMonthCache.lookup(months.get(i));
+            if (entries[i] == null) stale.add(i);
+        }
+        long total = summary.total;
+        for (ReportMonthCache.Month month : months) total += month.rows;
+        final long expected = total;
+
+        AtomicLong rendered = new AtomicLong();
+        AtomicBoolean failed = new AtomicBoolean(false);
+        ReportJobQueue.Progress shared = sharedProgress(progress, failed);
+        for (ReportMonthCache.Entry entry : entries) {
+            if (entry != null) rendered.addAndGet(entry.getSummary().total);
+        }
+
+        // Rebuild what changed, one month per task
+        List<Future<?>> futures = new ArrayList<>();
         try {
-            String fileName = "";
-            String title = "";
-            
-            switch (reportType) {
-                case "daily":
-                    fileName = "Daily_Appointments_Report_" + new SimpleDateFormat("yyyyMMdd").format(new Date()) + ".pdf";
-                    title = "Daily Appointments Report - " + new SimpleDateFormat("dd/MM/yyyy").format(new Date());
-                    break;
-                case "monthly":
-                    fileName = "Monthly_Appointments_Report_" + new SimpleDateFormat("yyyyMM").format(new Date()) + ".pdf";
-                    title = "Monthly Appointments Report - " + new SimpleDateFormat("MMMM yyyy").format(new Date());
-                    break;
-                case "all":
-                    fileName = "All_Appointments_Report_" + new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date()) + ".pdf";
-                    title = "All Appointments Report";
-                    break;
+            for (int index : stale) {
+                ReportMonthCache.Month month = months.get(index);
+                futures.add(RENDER_POOL.submit(() -> {
+                    File partFile = Files.createTempFile("hms-report-", ".pdf").toFile();
+                    try (Connection conn = DatabaseConnection.getConnection();
+                         PdfTableWriter writer = new PdfTableWriter(COLUMNS, COLUMN_X, COLUMN_CHARS)) {
+                        if (conn == null) throw new SQLException("No database connection available");
+                        Date from = Date.valueOf(month.getFirstDay());
+                        Date to = Date.valueOf(month.getNextMonth());
+                        Summary monthSummary = readSummary(conn,
+                            "appointment_date >= ? AND appointment_date < ?", from, to);
+                        writer.setFooterLabel(month.getFirstDay().format(MONTH_LABEL));
+                        writeRows(conn, dataQuery(spec, "a.appointment_date >= ? AND a.appointment_date < ?"),
+                                  new Object[]{from, to}, writer, shared, rendered, expected);
+                        writer.save(partFile);
+                        entries[index] = ReportMonthCache.store(month, monthSummary, partFile);
+                        System.out.println("Cached report month " + month.getKey());
+                    } finally {
+                        if (partFile.exists() && !partFile.delete()) partFile.deleteOnExit();
+                    }
+                    return null;
+                }));
             }
-            
-            PDDocument document = new PDDocument();
-            PDPage page = new PDPage();
-            document.addPage(page);
-            
-            PDPageContentStream contentStream = new PDPageContentStream(document, page);
-            
-            // Header section
-            contentStream.setFont(PDType1Font.HELVETICA_BOLD, 16);
-            contentStream.beginText();
-            contentStream.newLineAtOffset(50, 750);
-            contentStream.showText("Healthcare Management System");
-            contentStream.endText();
-            
-            contentStream.setFont(PDType1Font.HELVETICA_BOLD, 14);
-            contentStream.beginText();
-            contentStream.newLineAtOffset(50, 720);
-            contentStream.showText(title);
-            contentStream.endText();
-            
-            contentStream.setFont(PDType1Font.HELVETICA, 10);
-            contentStream.beginText();
-            contentStream.newLineAtOffset(50, 700);
-            contentStream.showText("Generated on: " + new SimpleDateFormat("dd/MM/yyyy HH:mm:ss").format(new Date()));
-            contentStream.endText();
-            
-            // Statistics section
-            contentStream.setFont(PDType1Font.HELVETICA_BOLD, 12);
-            contentStream.beginText();
-            contentStream.newLineAtOffset(50, 670);
-            contentStream.showText("Summary Statistics:");
-            contentStream.endText();
-            
-            Connection conn = DatabaseConnection.getConnection();
-            String countQuery = "";
-            
-            switch (reportType) {
-                case "daily":
-                    countQuery = "SELECT COUNT(*) as total, " +
-                                "SUM(CASE WHEN status = 'Scheduled' THEN 1 ELSE 0 END) as scheduled, " +
-                                "SUM(CASE WHEN status = 'Confirmed' THEN 1 ELSE 0 END) as confirmed, " +
-                                "SUM(CASE WHEN status = 'Completed' THEN 1 ELSE 0 END) as completed " +
-                                "FROM appointments WHERE appointment_date = CURDATE()";
-                    break;
-                case "monthly":
-                    countQuery = "SELECT COUNT(*) as total, " +
-                                "SUM(CASE WHEN status = 'Scheduled' THEN 1 ELSE 0 END) as scheduled, " +
-                                "SUM(CASE WHEN status = 'Confirmed' THEN 1 ELSE 0 END) as confirmed, " +
-                                "SUM(CASE WHEN status = 'Completed' THEN 1 ELSE 0 END) as completed " +
-                                "FROM appointments WHERE MONTH(appointment_date) = MONTH(CURDATE()) AND YEAR(appointment_date) = YEAR(CURDATE())";
-                    break;
-                case "all":
-                    countQuery = "SELECT COUNT(*) as total, " +
-                                "SUM(CASE WHEN status = 'Scheduled' THEN 1 ELSE 0 END) as scheduled, " +
-                                "SUM(CASE WHEN status = 'Confirmed' THEN 1 ELSE 0 END) as confirmed, " +
-                                "SUM(CASE WHEN status = 'Completed' THEN 1 ELSE 0 END) as completed " +
-                                "FROM appointments";
-                    break;
+            awaitAll(futures, failed);
+        } finally {
+            for (Future<?> f : futures) f.cancel(false);
+        }
+
+        for (ReportMonthCache.Entry entry : entries) {
+            summary.add(entry.getSummary());
+        }
+
+        // Live part: title, overall summary, then current and upcoming months
+        File livePart = Files.createTempFile("hms-report-", ".pdf").toFile();
+        try {
+            try (Connection conn = DatabaseConnection.getConnection();
+                 PdfTableWriter writer = new PdfTableWriter(COLUMNS, COLUMN_X, COLUMN_CHARS)) {
+                if (conn == null) throw new SQLException("No database connection available");
+                writeHeader(writer, spec, summary);
+                writeRows(conn, dataQuery(spec, liveFilter), new Object[]{liveFrom},
+                          writer, shared, rendered, expected);
+                writer.save(livePart);
+            }
+
+            // Newest first, matching the report's date order
+            PDFMergerUtility merger = new PDFMergerUtility();
+            merger.addSource(livePart);
+            for (ReportMonthCache.Entry entry : entries) {
+                merger.addSource(entry.getPdf());
+            }
+            merger.setDestinationFileName(file.getPath());
+            merger.mergeDocuments(MemoryUsageSetting.setupTempFileOnly());
+        } finally {
+            if (!livePart.delete()) livePart.deleteOnExit();
+        }
+        progress.update(expected, expected);
+        System.out.println("Report " + file.getName() + ": " + (months.size() - stale.size()) + " cached months, " +
+                           stale.size() + " rebuilt");
+    }
+
+    private void writeSerial(ReportSpec spec, Summary summary, File file, ReportJobQueue.Progress progress)
+            throws SQLException, IOException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PdfTableWriter writer = new PdfTableWriter(COLUMNS, COLUMN_X, COLUMN_CHARS)) {
+            if (conn == null) throw new SQLException("No database connection available");
+            writeHeader(writer, spec, summary);
+            writeRows(conn, dataQuery(spec, null), new Object[0], writer, progress, new AtomicLong(), summary.total);
+            // File save karein
+            writer.save(file);
+        }
+    }
+
+    private void writeParallel(ReportSpec spec, Summary summary, List<String[]> parts, File file,
+                               ReportJobQueue.Progress progress) throws SQLException, IOException {
+        AtomicLong rendered = new AtomicLong();
+        AtomicBoolean failed = new AtomicBoolean(false);
+        ReportJobQueue.Progress shared = sharedProgress(progress, failed);
+
+        List<File> partFiles = new ArrayList<>();
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < parts.size(); i++) {
+                File partFile = Files.createTempFile("hms-report-", ".pdf").toFile();
+                partFiles.add(partFile);
+                String[] range = parts.get(i);
+                boolean first = i == 0;
+                futures.add(RENDER_POOL.submit(() -> {
+                    try (Connection conn = DatabaseConnection.getConnection();
+                         PdfTableWriter writer = new PdfTableWriter(COLUMNS, COLUMN_X, COLUMN_CHARS)) {
+                        if (conn == null) throw new SQLException("No database connection available");
+                        writer.setFooterLabel(range[0].equals(range[1]) ? range[0] : range[0] + " to " + range[1]);
+                        if (first) writeHeader(writer, spec, summary);
+                        writeRows(conn, dataQuery(spec, "a.appointment_date BETWEEN ? AND ?"),
+                                  new Object[]{range[0], range[1]}, writer, shared, rendered, summary.total);
+                        writer.save(partFile);
+                    }
+                    return null;
+                }));
+            }
+            awaitAll(futures, failed);
+
+            // Parts are in report order, so a straight append gives the serial layout
+            PDFMergerUtility merger = new PDFMergerUtility();
+            for (File partFile : partFiles) {
+                merger.addSource(partFile);
+            }
+            merger.setDestinationFileName(file.getPath());
+            merger.mergeDocuments(MemoryUsageSetting.setupTempFileOnly());
+        } finally {
+            for (Future<?> f : futures) f.cancel(false);
+            for (File partFile : partFiles) {
+                if (!partFile.delete()) partFile.deleteOnExit();
+            }
+        }
+    }
+
+    // Parts report into the job through one lock; a failed part stops the others
+    private static ReportJobQueue.Progress sharedProgress(ReportJobQueue.Progress progress, AtomicBoolean failed) {
+        return new ReportJobQueue.Progress() {
+            public synchronized void update(long done, long total) {
+                progress.update(done, total);
+            }
+
+            public boolean isCancelled() {
+                return failed.get() || progress.isCancelled();
+            }
+        };
+    }
+
+    // Waits for every part; the first failure stops the rest and is rethrown as-is
+    private static void awaitAll(List<Future<?>> futures, AtomicBoolean failed) throws SQLException, IOException {
+        Throwable error = null;
+        for (Future<?> f : futures) {
+            try {
+                f.get();
+            } catch (ExecutionException e) {
+                failed.set(true);
+                if (error == null) error = e.getCause();
+            } catch (InterruptedException e) {
+                failed.set(true);
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Interrupted while rendering report");
+            }
+        }
+        if (error instanceof SQLException) throw (SQLException) error;
+        if (error instanceof IOException) throw (IOException) error;
+        if (error instanceof RuntimeException) throw (RuntimeException) error;
+        if (error != null) throw new IOException("Report rendering failed", error);
+    }
+
+    private void writeHeader(PdfTableWriter writer, ReportSpec spec, Summary summary) throws IOException {
+        // Header section
+        writer.heading("Healthcare Management System", true, 16, 0, 30);
+        writer.heading(spec.title, true, 14, 0, 20);
+        writer.heading("Generated on: " + new SimpleDateFormat("dd/MM/yyyy HH:mm:ss").format(new java.util.Date()),
+                       false, 10, 0, 30);
+
+        // Statistics section
+        writer.heading("Summary Statistics:", true, 12, 0, 20);
+        writer.heading("• Total Appointments: " + summary.total, false, 10, 20, 15);
+        writer.heading("• Scheduled: " + summary.scheduled, false, 10, 20, 15);
+        writer.heading("• Confirmed: " + summary.confirmed, false, 10, 20, 15);
+        writer.heading("• Completed: " + summary.completed, false, 10, 20, 25);
+
+        // Appointments list - every row, as many pages as it takes
+        writer.heading("Appointments Details:", true, 12, 0, 20);
+    }
+
+    private void writeRows(Connection conn, String query, Object[] params, PdfTableWriter writer,
+                           ReportJobQueue.Progress progress, AtomicLong rendered, long total)
+            throws SQLException, IOException {
+        try (PreparedStatement pstmt = conn.prepareStatement(query,
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            pstmt.setFetchSize(REPORT_FETCH_SIZE);
+            for (int i = 0; i < params.length; i++) {
+                pstmt.setObject(i + 1, params[i]);
             }
-            
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery(countQuery);
-            
-            if (rs.next()) {
-                int yPos = 650;
-                contentStream.setFont(PDType1Font.HELVETICA, 10);
-                
-                contentStream.beginText();
-                contentStream.newLineAtOffset(70, yPos);
-                contentStream.showText("• Total Appointments: " + rs.getInt("total"));
-                contentStream.endText();
-                
-                contentStream.beginText();
-                contentStream.newLineAtOffset(70, yPos - 15);
-                contentStream.showText("• Scheduled: " + rs.getInt("scheduled"));
-                contentStream.endText();
-                
-                contentStream.beginText();
-                contentStream.newLineAtOffset(70, yPos - 30);
-                contentStream.showText("• Confirmed: " + rs.getInt("confirmed"));
-                contentStream.endText();
-                
-                contentStream.beginText();
-                contentStream.newLineAtOffset(70, yPos - 45);
-                contentStream.showText("• Completed: " + rs.getInt("completed"));
-                contentStream.endText();
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    writer.addRow(rs.getString("appointment_id"),
+                                  rs.getString("patient_name"),
+                                  rs.getString("doctor_name"),
+                                  rs.getString("appointment_date"),
+                                  rs.getString("appointment_time"),
+                                  rs.getString("status"));
+                    if (writer.getRowCount() % PROGRESS_INTERVAL == 0) {
+                        if (progress.isCancelled()) {
+                            // Stop the server side too, or closing the streaming result reads it to the end
+                            pstmt.cancel();
+                            throw new CancellationException();
+                        }
+                        progress.update(rendered.addAndGet(PROGRESS_INTERVAL), total);
+                    }
+                }
             }
-            rs.close();
-            stmt.close();
-            
-            // Appointments list
-            contentStream.setFont(PDType1Font.HELVETICA_BOLD, 12);
-            contentStream.beginText();
-            contentStream.newLineAtOffset(50, 580);
-            contentStream.showText("Appointments Details:");
-            contentStream.endText();
-            
-            // Table header
-            int tableY = 560;
-            contentStream.setFont(PDType1Font.HELVETICA_BOLD, 9);
-            contentStream.beginText();
-            contentStream.newLineAtOffset(50, tableY);
-            contentStream.showText("ID");
-            contentStream.endText();
-            
-            contentStream.beginText();
-            contentStream.newLineAtOffset(80, tableY);
-            contentStream.showText("Patient");
-            contentStream.endText();
-            
-            contentStream.beginText();
-            contentStream.newLineAtOffset(180, tableY);
-            contentStream.showText("Doctor");
-            contentStream.endText();
-            
-            contentStream.beginText();
-            contentStream.newLineAtOffset(280, tableY);
-            contentStream.showText("Date");
-            contentStream.endText();
-            
-            contentStream.beginText();
-            contentStream.newLineAtOffset(350, tableY);
-            contentStream.showText("Time");
-            contentStream.endText();
-            
-            contentStream.beginText();
-            contentStream.newLineAtOffset(400, tableY);
-            contentStream.showText("Status");
-            contentStream.endText();
-            
-            // CORRECTED QUERIES - USING USERS TABLE FOR NAMES
-            String dataQuery = "";
+        }
+    }
+
+    private Summary readSummary(Connection conn, String countFilter, Object... params) throws SQLException {
+        String where = countFilter.isEmpty() ? "" : "WHERE " + countFilter;
+        try (PreparedStatement pstmt = conn.prepareStatement(COUNT_SELECT + where)) {
+            for (int i = 0; i < params.length; i++) {
+                pstmt.setObject(i + 1, params[i]);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                Summary summary = new Summary();
+                if (rs.next()) {
+                    summary.total = rs.getLong("total");
+                    summary.scheduled = rs.getLong("scheduled");
+                    summary.confirmed = rs.getLong("confirmed");
+                    summary.completed = rs.getLong("completed");
+                }
+                return summary;
+            }
+        }
+    }
+
+    // Contiguous {from, to} date ranges in date order, each about total / parts rows;
+    // null if some rows have no date (they would fall outside every range)
+    private List<String[]> planParts(Connection conn, ReportSpec spec, long total) throws SQLException {
+        String where = spec.countFilter.isEmpty() ? "" : "WHERE " + spec.countFilter + " ";
+        String query = "SELECT appointment_date, COUNT(*) FROM appointments " + where +
+                       "GROUP BY appointment_date ORDER BY appointment_date";
+        long target = Math.max(1, total / ((long) RENDER_THREADS * PARTS_PER_THREAD));
+
+        List<String[]> parts = new ArrayList<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(query)) {
+            String first = null, last = null;
+            long rows = 0;
+            while (rs.next()) {
+                String day = rs.getString(1);
+                if (day == null) return null;
+                if (first == null) first = day;
+                last = day;
+                rows += rs.getLong(2);
+                if (rows >= target) {
+                    parts.add(new String[]{first, last});
+                    first = null;
+                    rows = 0;
+                }
+            }
+            if (first != null) parts.add(new String[]{first, last});
+        }
+        return parts;
+    }
+
+    private static String dataQuery(ReportSpec spec, String extraFilter) {
+        String where = spec.filter;
+        if (extraFilter != null) where = where.isEmpty() ? extraFilter : where + " AND " + extraFilter;
+        return DATA_SELECT + (where.isEmpty() ? "" : "WHERE " + where + " ") + "ORDER BY " + spec.orderBy;
+    }
+
+    // Counts shown at the top of a report; also stored per cached month
+    static class Summary {
+        long total, scheduled, confirmed, completed;
+
+        void add(Summary other) {
+            total += other.total;
+            scheduled += other.scheduled;
+            confirmed += other.confirmed;
+            completed += other.completed;
+        }
+    }
+
+    private static class ReportSpec {
+        String fileName;
+        String title;
+        String countFilter;   // on appointments, unaliased
+        String filter;        // same condition on the aliased data query
+        String orderBy;
+        boolean monthCached;   // closed months come from ReportMonthCache
+
+        static ReportSpec of(String reportType) {
+            ReportSpec s = new ReportSpec();
             switch (reportType) {
                 case "daily":
-                    dataQuery = "SELECT a.appointment_id, " +
-                               "u_p.name as patient_name, " +
-                               "u_d.name as doctor_name, " +
-                               "a.appointment_date, " +
-                               "a.appointment_time, " +
-                               "a.status " +
-                               "FROM appointments a " +
-                               "JOIN patients p ON a.patient_id = p.patient_id " +
-                               "JOIN users u_p ON p.user_id = u_p.user_id " +
-                               "JOIN doctors d ON a.doctor_id = d.doctor_id " +
-                               "JOIN users u_d ON d.user_id = u_d.user_id " +
-                               "WHERE a.appointment_date = CURDATE() " +
-                               "ORDER BY a.appointment_time";
+                    s.fileName = "Daily_Appointments_Report_" + new SimpleDateFormat("yyyyMMdd").format(new java.util.Date()) + ".pdf";
+                    s.title = "Daily Appointments Report - " + new SimpleDateFormat("dd/MM/yyyy").format(new java.util.Date());
+                    s.countFilter = "appointment_date >= CURDATE() AND appointment_date < CURDATE() + INTERVAL 1 DAY";
+                    s.filter = "a.appointment_date >= CURDATE() AND a.appointment_date < CURDATE() + INTERVAL 1 DAY";
+                    s.orderBy = "a.appointment_time";
                     break;
                 case "monthly":
-                    dataQuery = "SELECT a.appointment_id, " +
-                               "u_p.name as patient_name, " +
-                               "u_d.name as doctor_name, " +
-                               "a.appointment_date, " +
-                               "a.appointment_time, " +
-                               "a.status " +
-                               "FROM appointments a " +
-                               "JOIN patients p ON a.patient_id = p.patient_id " +
-                               "JOIN users u_p ON p.user_id = u_p.user_id " +
-                               "JOIN doctors d ON a.doctor_id = d.doctor_id " +
-                               "JOIN users u_d ON d.user_id = u_d.user_id " +
-                               "WHERE MONTH(a.appointment_date) = MONTH(CURDATE()) AND YEAR(a.appointment_date) = YEAR(CURDATE()) " +
-                               "ORDER BY a.appointment_date, a.appointment_time";
+                    s.fileName = "Monthly_Appointments_Report_" + new SimpleDateFormat("yyyyMM").format(new java.util.Date()) + ".pdf";
+                    s.title = "Monthly Appointments Report - " + new SimpleDateFormat("MMMM yyyy").format(new java.util.Date());
+                    s.countFilter = "appointment_date >= " + MONTH_START +
+                                    " AND appointment_date < " + MONTH_START + " + INTERVAL 1 MONTH";
+                    s.filter = "a.appointment_date >= " + MONTH_START +
+                               " AND a.appointment_date < " + MONTH_START + " + INTERVAL 1 MONTH";
+                    s.orderBy = "a.appointment_date, a.appointment_time";
                     break;
                 case "all":
-                    dataQuery = "SELECT a.appointment_id, " +
-                               "u_p.name as patient_name, " +
-                               "u_d.name as doctor_name, " +
-                               "a.appointment_date, " +
-                               "a.appointment_time, " +
-                               "a.status " +
-                               "FROM appointments a " +
-                               "JOIN patients p ON a.patient_id = p.patient_id " +
-                               "JOIN users u_p ON p.user_id = u_p.user_id " +
-                               "JOIN doctors d ON a.doctor_id = d.doctor_id " +
-                               "JOIN users u_d ON d.user_id = u_d.user_id " +
-                               "ORDER BY a.appointment_date DESC, a.appointment_time";
+                    s.fileName = "All_Appointments_Report_" + new SimpleDateFormat("yyyyMMdd_HHmmss").format(new java.util.Date()) + ".pdf";
+                    s.title = "All Appointments Report";
+                    s.countFilter = "";
+                    s.filter = "";
+                    s.orderBy = "a.appointment_date DESC, a.appointment_time";
+                    s.monthCached = true;
                     break;
+                default:
+                    throw new IllegalArgumentException("Unknown report type: " + reportType);
             }
-            
-            stmt = conn.createStatement();
-            rs = stmt.executeQuery(dataQuery);
-            
-            contentStream.setFont(PDType1Font.HELVETICA, 8);
-            tableY = 545;
-            int rowCount = 0;
-            
-            while (rs.next() && tableY > 100) {
-                contentStream.beginText();
-                contentStream.newLineAtOffset(50, tableY);
-                contentStream.showText(rs.getString("appointment_id"));
-                contentStream.endText();
-                
-                contentStream.beginText();
-                contentStream.newLineAtOffset(80, tableY);
-                contentStream.showText(shortenText(rs.getString("patient_name"), 15));
-                contentStream.endText();
-                
-                contentStream.beginText();
-                contentStream.newLineAtOffset(180, tableY);
-                contentStream.showText(shortenText(rs.getString("doctor_name"), 15));
-                contentStream.endText();
-                
-                contentStream.beginText();
-                contentStream.newLineAtOffset(280, tableY);
-                contentStream.showText(rs.getString("appointment_date"));
-                contentStream.endText();
-                
-                contentStream.beginText();
-                contentStream.newLineAtOffset(350, tableY);
-                contentStream.showText(rs.getString("appointment_time"));
-                contentStream.endText();
-                
-                contentStream.beginText();
-                contentStream.newLineAtOffset(400, tableY);
-                contentStream.showText(rs.getString("status"));
-                contentStream.endText();
-                
-                tableY -= 12;
-                rowCount++;
-            }
-            
-            if (rs.next()) {
-                contentStream.beginText();
-                contentStream.newLineAtOffset(50, tableY);
-                contentStream.showText("... and " + (getRemainingCount(conn, reportType) - rowCount) + " more records");
-                contentStream.endText();
-            }
-            
-            rs.close();
-            stmt.close();
-            conn.close();
-            
-            contentStream.close();
-            
-            // File save karein
-            String downloadsPath = System.getProperty("user.home") + "/Downloads/";
-            File file = new File(downloadsPath + fileName);
-            document.save(file);
-            document.close();
-            
-            // Success message
-            JOptionPane.showMessageDialog(null, 
-                "PDF Report Generated Successfully!\n\n" +
-                "File: " + fileName + "\n" +
-                "Location: " + downloadsPath, 
-                "Report Generated", 
-                JOptionPane.INFORMATION_MESSAGE);
-            
-            // File open karein
-            if (Desktop.isDesktopSupported()) {
-                Desktop.getDesktop().open(file);
-            }
-            
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(null, 
-                "Error generating PDF report: " + e.getMessage(), 
-                "Error", 
-                JOptionPane.ERROR_MESSAGE);
-            e.printStackTrace();
-        }
-    }
-    
-    private String shortenText(String text, int maxLength) {
-        if (text == null) return "";
-        if (text.length() <= maxLength) return text;
-        return text.substring(0, maxLength - 3) + "...";
-    }
-    
-    private int getRemainingCount(Connection conn, String reportType) throws SQLException {
-        String countQuery = "";
-        switch (reportType) {
-            case "daily":
-                countQuery = "SELECT COUNT(*) FROM appointments WHERE appointment_date = CURDATE()";
-                break;
-            case "monthly":
-                countQuery = "SELECT COUNT(*) FROM appointments WHERE MONTH(appointment_date) = MONTH(CURDATE()) AND YEAR(appointment_date) = YEAR(CURDATE())";
-                break;
-            case "all":
-                countQuery = "SELECT COUNT(*) FROM appointments";
-                break;
+            return s;
         }
-        
-        Statement stmt = conn.createStatement();
-        ResultSet rs = stmt.executeQuery(countQuery);
-        rs.next();
-        int count = rs.getInt(1);
-        rs.close();
-        stmt.close();
-        return count;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,366 @@
+// PagedTableModel.java - Keyset-paginated table model that fetches rows as the user scrolls
+import javax.swing.table.AbstractTableModel;
+import java.sql.*;
+import java.util.*;
+import java.util.function.Consumer;
+
+/*
+  Rows are fetched PAGE_SIZE at a time with keyset pagination
+  (WHERE (k0, k1) < (last k0, last k1) ORDER BY k0, k1 LIMIT n), never OFFSET,
+  so page 10,000 costs the same as page 1. Only MAX_CACHED_PAGES pages are
+  kept; evicted pages are re-read from the remembered key of the page before.
+  The row count grows as the user scrolls toward the end, so opening a table
+  costs one page query whatever the table size.
+
+  All state is touched on the EDT only; queries run on the BackgroundLoader.
+*/
+public class PagedTableModel extends AbstractTableModel {
+    private static final int PAGE_SIZE = 100;
+    private static final int MAX_CACHED_PAGES = 10;
+    private static final String LOADING = "Loading...";
+
+    public interface RowMapper {
+        Object[] map(ResultSet rs) throws SQLException;
+    }
+
+    private final String[] columns;
+    private final BackgroundLoader loader;
+    private final String selectList;
+    private final String fromClause;
+    private final String filter;
+    private final Object[] filterParams;
+    private final String groupBy;
+    private final String[] keyColumns;
+    private final boolean descending;
+    private final RowMapper mapper;
+    private final String loaderKey = "page-" + System.identityHashCode(this);
+    private Consumer<Exception> onError = e -> System.out.println("Error loading page: " + e.getMessage());
+
+    // endKeys.get(p) = sort key of the last row on page p
+    private final List<Object[]> endKeys = new ArrayList<>();
+    private final LinkedHashMap<Integer, List<Object[]>> pages =
+        new LinkedHashMap<Integer, List<Object[]>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<Object[]>> eldest) {
+                return size() > MAX_CACHED_PAGES;
+            }
+        };
+    private final Set<Integer> pending = new HashSet<>();
+    // Pages whose query failed; getValueAt leaves them alone until reload()/refreshLoadedPages()
+    private final Set<Integer> failed = new HashSet<>();
+    private int rowCount = 0;
+    private boolean exhausted = false;
+    // Bumped on reload so results of queries started before it are ignored
+    private int generation = 0;
+
+    /*
+      selectList/fromClause/filter/groupBy are SQL fragments; filter may use ?
+      placeholders bound from filterParams. keyColumns must give a unique,
+      non-null ordering (e.g. date then id) and are all sorted the same way.
+    */
+    public PagedTableModel(String[] columns, BackgroundLoader loader,
+                           String selectList, String fromClause, String filter, Object[] filterParams,
+                           String groupBy, String[] keyColumns, boolean descending, RowMapper mapper) {
+        this.columns = columns;
+        this.loader = loader;
+        this.selectList = selectList;
+        this.fromClause = fromClause;
+        this.filter = filter;
+        this.filterParams = filterParams == null ? new Object[0] : filterParams;
+        this.groupBy = groupBy;
+        this.keyColumns = keyColumns;
+        this.descending = descending;
+        this.mapper = mapper;
+    }
+
+    @Override
+    public int getRowCount() { return rowCount; }
+
+    @Override
+    public int getColumnCount() { return columns.length; }
+
+    @Override
+    public String getColumnName(int column) { return columns[column]; }
+
+    @Override
+    public boolean isCellEditable(int row, int column) { return false; }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        int page = row / PAGE_SIZE;
+        List<Object[]> rows = pages.get(page);
+        if (rows == null) {
+            requestPage(page);
+            return column == 0 ? LOADING : null;
+        }
+        // Reaching the last known page pulls in the next one
+        if (!exhausted && page == endKeys.size() - 1) {
+            requestPage(page + 1);
+        }
+        int index = row % PAGE_SIZE;
+        return index < rows.size() ? rows.get(index)[column] : null;
+    }
+
+    // Patches the cached copy only (e.g. after a successful UPDATE); the next fetch re-reads the DB
+    @Override
+    public void setValueAt(Object value, int row, int column) {
+        List<Object[]> rows = pages.get(row / PAGE_SIZE);
+        if (rows != null && row % PAGE_SIZE < rows.size()) {
+            rows.get(row % PAGE_SIZE)[column] = value;
+            fireTableCellUpdated(row, column);
+        }
+    }
+
+    /*
+      Replaces cached rows whose first column (the id) has a new version in
+      rowsById and returns the ids that were found. Rows not on a cached page
+      are left to be read fresh when their page is next fetched.
+    */
+    public Set<Object> updateRows(Map<Object, Object[]> rowsById) {
+        Set<Object> found = new HashSet<>();
+        for (Map.Entry<Integer, List<Object[]>> page : pages.entrySet()) {
+            List<Object[]> rows = page.getValue();
+            for (int i = 0; i < rows.size(); i++) {
+                Object[] replacement = rowsById.get(rows.get(i)[0]);
+                if (replacement != null) {
+                    rows.set(i, replacement);
+                    found.add(replacement[0]);
+                    int row = page.getKey() * PAGE_SIZE + i;
+                    fireTableRowsUpdated(row, row);
+                }
+            }
+        }
+        return found;
+    }
+
+    /*
+      The cached values of a row, including any the mapper returns past the
+      visible columns (e.g. a row version); null while its page is not loaded.
+    */
+    public Object[] getRow(int row) {
+        List<Object[]> rows = pages.get(row / PAGE_SIZE);
+        if (rows == null || row % PAGE_SIZE >= rows.size()) return null;
+        return rows.get(row % PAGE_SIZE);
+    }
+
+    /*
+      Re-reads just the rows whose idColumn is one of ids and swaps them into
+      the cached pages. If one of them no longer matches the filter (deleted,
+      or moved out of this view), the loaded pages are re-read instead.
+    */
+    public void refreshRows(String idColumn, Collection<?> ids) {
+        if (ids.isEmpty()) return;
+        final int gen = generation;
+        final List<Object> idList = new ArrayList<>(ids);
+        loader.submit(loaderKey + "-rows-" + idList,
+            () -> queryRows(idColumn, idList),
+            rowsById -> {
+                if (gen != generation) return;
+                if (updateRows(rowsById).size() < idList.size()) refreshLoadedPages();
+            },
+            onError);
+    }
+
+    // Called on the EDT when a page query fails
+    public void setOnError(Consumer<Exception> onError) {
+        this.onError = onError;
+    }
+
+    // Drops everything and starts again from the first page
+    public void reload() {
+        generation++;
+        pages.clear();
+        pending.clear();
+        failed.clear();
+        endKeys.clear();
+        rowCount = 0;
+        exhausted = false;
+        fireTableDataChanged();
+        requestPage(0);
+    }
+
+    // Re-reads the pages currently held, keeping row count and scroll position
+    public void refreshLoadedPages() {
+        failed.clear();
+        if (endKeys.isEmpty()) {
+            reload();
+            return;
+        }
+        List<Integer> loaded = new ArrayList<>(pages.keySet());
+        Collections.sort(loaded);
+        // Cached data stays on screen until the fresh copy arrives
+        for (int page : loaded) {
+            fetch(page, true);
+        }
+    }
+
+    private void requestPage(int page) {
+        // Page p can only be located once the last key of page p-1 is known
+        if (page > endKeys.size()) return;
+        if (page == endKeys.size() && exhausted) return;
+        // Painting asks again on every repaint; one error dialog per failure is enough
+        if (failed.contains(page)) return;
+        fetch(page, false);
+    }
+
+    private void fetch(int page, boolean refresh) {
+        if (pending.contains(page)) return;
+        pending.add(page);
+
+        final int gen = generation;
+        final Object[] startKey = page == 0 ? null : endKeys.get(page - 1);
+        loader.submit(loaderKey + "-" + page,
+            () -> queryPage(startKey),
+            result -> applyPage(gen, page, result, refresh),
+            e -> {
+                if (gen != generation) return;
+                pending.remove(page);
+                failed.add(page);
+                onError.accept(e);
+            });
+    }
+
+    private PageResult queryPage(Object[] startKey) throws SQLException {
+        StringBuilder sql = new StringBuilder("SELECT ").append(selectList);
+        for (int i = 0; i < keyColumns.length; i++) {
+            sql.append(", ").append(keyColumns[i]).append(" AS page_k").append(i);
+        }
+        sql.append(" FROM ").append(fromClause);
+
+        List<String> conditions = new ArrayList<>();
+        List<Object> params = new ArrayList<>();
+        if (filter != null) {
+            conditions.add("(" + filter + ")");
+            params.addAll(Arrays.asList(filterParams));
+        }
+        if (startKey != null) {
+            conditions.add(keysetPredicate(startKey, params));
+        }
+        if (!conditions.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        if (groupBy != null) {
+            sql.append(" GROUP BY ").append(groupBy);
+        }
+        sql.append(" ORDER BY ");
+        for (int i = 0; i < keyColumns.length; i++) {
+            if (i > 0) sql.append(", ");
+            sql.append(keyColumns[i]).append(descending ? " DESC" : " ASC");
+        }
+        sql.append(" LIMIT ").append(PAGE_SIZE);
+
+        PageResult result = new PageResult();
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            if (conn == null) throw new SQLException("No database connection available");
+            try (PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
+                for (int i = 0; i < params.size(); i++) {
+                    pstmt.setObject(i + 1, params.get(i));
+                }
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        result.rows.add(mapper.map(rs));
+                        Object[] key = new Object[keyColumns.length];
+                        for (int i = 0; i < key.length; i++) {
+                            key[i] = rs.getObject("page_k" + i);
+                        }
+                        result.lastKey = key;
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private Map<Object, Object[]> queryRows(String idColumn, List<Object> ids) throws SQLException {
+        StringBuilder sql = new StringBuilder("SELECT ").append(selectList).append(" FROM ").append(fromClause);
+        List<Object> params = new ArrayList<>();
+        sql.append(" WHERE ");
+        if (filter != null) {
+            sql.append("(").append(filter).append(") AND ");
+            params.addAll(Arrays.asList(filterParams));
+        }
+        sql.append(idColumn).append(" IN (").append(String.join(", ", Collections.nCopies(ids.size(), "?"))).append(")");
+        params.addAll(ids);
+        if (groupBy != null) {
+            sql.append(" GROUP BY ").append(groupBy);
+        }
+
+        Map<Object, Object[]> rowsById = new HashMap<>();
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            if (conn == null) throw new SQLException("No database connection available");
+            try (PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
+                for (int i = 0; i < params.size(); i++) {
+                    pstmt.setObject(i + 1, params.get(i));
+                }
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        Object[] row = mapper.map(rs);
+                        rowsById.put(row[0], row);
+                    }
+                }
+            }
+        }
+        return rowsById;
+    }
+
+    // (k0 < ?) OR (k0 = ? AND k1 < ?) OR ... - expanded so MySQL can range-scan the index
+    private String keysetPredicate(Object[] startKey, List<Object> params) {
+        String op = descending ? " < ?" : " > ?";
+        StringBuilder sb = new StringBuilder("(");
+        for (int i = 0; i < keyColumns.length; i++) {
+            if (i > 0) sb.append(" OR ");
+            sb.append("(");
+            for (int j = 0; j < i; j++) {
+                sb.append(keyColumns[j]).append(" = ? AND ");
+                params.add(startKey[j]);
+            }
+            sb.append(keyColumns[i]).append(op).append(")");
+            params.add(startKey[i]);
+        }
+        return sb.append(")").toString();
+    }
+
+    private void applyPage(int gen, int page, PageResult result, boolean refresh) {
+        if (gen != generation) return;
+        pending.remove(page);
+        failed.remove(page);
+
+        int firstRow = page * PAGE_SIZE;
+        boolean isNewPage = page == endKeys.size();
+        pages.put(page, result.rows);
+
+        if (isNewPage) {
+            if (result.rows.isEmpty()) {
+                exhausted = true;
+                return;
+            }
+            endKeys.add(result.lastKey);
+            exhausted = result.rows.size() < PAGE_SIZE;
+            rowCount = firstRow + result.rows.size();
+            fireTableRowsInserted(firstRow, rowCount - 1);
+            return;
+        }
+
+        if (result.lastKey != null) endKeys.set(page, result.lastKey);
+        if (page == endKeys.size() - 1) {
+            // The last page may have grown or shrunk since it was first read
+            int newCount = firstRow + result.rows.size();
+            exhausted = result.rows.size() < PAGE_SIZE;
+            if (newCount != rowCount) {
+                rowCount = newCount;
+                fireTableDataChanged();
+                return;
+            }
+        } else if (refresh && result.rows.size() < PAGE_SIZE) {
+            // Rows disappeared in the middle of the list: start over for a consistent view
+            reload();
+            return;
+        }
+        fireTableRowsUpdated(firstRow, firstRow + PAGE_SIZE - 1);
+    }
+
+    private static class PageResult {
+        final List<Object[]> rows = new ArrayList<>(PAGE_SIZE);
+        Object[] lastKey;
+    }
+}
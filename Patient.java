@@ -1,12 +1,12 @@
 public class Patient extends User {
 
-    public Patient(String username) {
-        super(username);
+    public Patient(Session session) {
+        super(session);
     }
 
     @Override
     public void openDashboard() {
         System.out.println("Opening Patient Dashboard for: " + username);
-        new PatientDashboard().setVisible(true);
+        new PatientDashboard(session).setVisible(true);
     }
 }
@@ -1,16 +1,25 @@
 // PatientDashboard.java - COMPLETE FIXED VERSION
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.*;
 import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.Collections;
 
 public class PatientDashboard extends JFrame {
     private JTabbedPane tabbedPane;
-    private DefaultTableModel appointmentTableModel;
+    private PagedTableModel appointmentTableModel;
+    // Position of the hidden row_version value in appointmentTableModel rows
+    private static final int ROW_VERSION_INDEX = 6;
     private JButton themeToggleButton;
+    // All JDBC for this window runs here, never on the EDT; cancelled when the window closes
+    private final BackgroundLoader loader = new BackgroundLoader(this);
+    private final Session session;
 
-    public PatientDashboard() {
+    public PatientDashboard(Session session) {
+        this.session = session;
         setupUI();
         loadAppointmentData();
     }
@@ -97,9 +106,29 @@ public class PatientDashboard extends JFrame {
         panel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
 
         String[] columns = {"Appointment ID", "Doctor", "Date", "Time", "Status", "Type"};
-        appointmentTableModel = new DefaultTableModel(columns, 0) {
-            public boolean isCellEditable(int row, int column) { return false; }
-        };
+        // CORRECTED QUERY - Simple version without complex joins, a page at a time
+        appointmentTableModel = new PagedTableModel(columns, loader,
+            "a.appointment_id, d.name as doctor_name, a.appointment_date, " +
+            "a.appointment_time, a.status, a.type, a.row_version",
+            "appointments a JOIN doctors d ON a.doctor_id = d.doctor_id",
+            "a.patient_id = ?", new Object[]{session.getPatientId()},
+            null, new String[]{"a.appointment_date", "a.appointment_id"}, true,
+            rs -> new Object[]{
+                rs.getString("appointment_id"),
+                rs.getString("doctor_name"),
+                rs.getString("appointment_date"),
+                rs.getString("appointment_time"),
+                rs.getString("status"),
+                rs.getString("type"),
+                rs.getLong("row_version") // not shown; checked when cancelling
+            });
+        appointmentTableModel.setOnError(e -> {
+            JOptionPane.showMessageDialog(this, 
+                "Error loading appointments: " + e.getMessage() + 
+                "\n\nTry re-login or check database connection.", 
+                "Database Error", JOptionPane.ERROR_MESSAGE);
+            e.printStackTrace();
+        });
         JTable appointmentTable = new JTable(appointmentTableModel);
         JScrollPane scrollPane = new JScrollPane(appointmentTable);
 
@@ -254,9 +283,14 @@ public class PatientDashboard extends JFrame {
         gbc.gridx = 0; gbc.gridy = 0;
         formPanel.add(new JLabel("Select Doctor:"), gbc);
         gbc.gridx = 1;
-        String[] doctors = {"Dr. Amit Sharma (Cardiology)", "Dr. Priya Patel (Pediatrics)", 
-                           "Dr. Sanjay Gupta (Orthopedics)"};
-        JComboBox<String> doctorCombo = new JComboBox<>(doctors);
+        // Filled from the shared doctor directory; stays empty if the DB is unavailable
+        JComboBox<String> doctorCombo = new JComboBox<>();
+        loader.submit("doctors", DirectoryCache::getDoctorNames, doctorNames -> {
+            doctorCombo.removeAllItems();
+            for (String name : doctorNames) {
+                doctorCombo.addItem(name);
+            }
+        }, e -> System.out.println("Error loading doctors: " + e.getMessage()));
         formPanel.add(doctorCombo, gbc);
 
         // Appointment Type
@@ -271,17 +305,50 @@ public class PatientDashboard extends JFrame {
         gbc.gridx = 0; gbc.gridy = 2;
         formPanel.add(new JLabel("Preferred Date:"), gbc);
         gbc.gridx = 1;
-        JTextField dateField = new JTextField("2024-02-10");
+        JTextField dateField = new JTextField(LocalDate.now().plusDays(1).toString());
         formPanel.add(dateField, gbc);
 
-        // Preferred Time
+        // Preferred Time - only the doctor's free slots on that date
         gbc.gridx = 0; gbc.gridy = 3;
         formPanel.add(new JLabel("Preferred Time:"), gbc);
         gbc.gridx = 1;
-        String[] times = {"9:00 AM", "10:00 AM", "11:00 AM", "2:00 PM", "3:00 PM", "4:00 PM"};
-        JComboBox<String> timeCombo = new JComboBox<>(times);
+        JComboBox<String> timeCombo = new JComboBox<>();
         formPanel.add(timeCombo, gbc);
 
+        Runnable refreshSlots = () -> {
+            String doctorName = (String) doctorCombo.getSelectedItem();
+            LocalDate date = parseDate(dateField.getText());
+            if (doctorName == null || date == null) {
+                timeCombo.removeAllItems();
+                return;
+            }
+            // The name -> id lookup may read the doctor directory, so it runs in the job too.
+            // null = the doctor is no longer in the directory
+            loader.submit("slots", () -> {
+                String doctorId = getDoctorIdFromName(doctorName);
+                return doctorId == null ? null : SlotAvailability.freeSlots(doctorId, date);
+            }, free -> {
+                timeCombo.removeAllItems();
+                if (free == null) {
+                    JOptionPane.showMessageDialog(PatientDashboard.this,
+                        doctorName + " is not available for booking.", "Doctor Unavailable",
+                        JOptionPane.WARNING_MESSAGE);
+                    return;
+                }
+                for (String slot : free) {
+                    timeCombo.addItem(slot);
+                }
+            }, e -> System.out.println("Error loading free slots: " + e.getMessage()));
+        };
+        doctorCombo.addActionListener(e -> refreshSlots.run());
+        dateField.addActionListener(e -> refreshSlots.run());
+        dateField.addFocusListener(new FocusAdapter() {
+            public void focusLost(FocusEvent e) {
+                refreshSlots.run();
+            }
+        });
+        refreshSlots.run();
+
         // Symptoms/Reason
         gbc.gridx = 0; gbc.gridy = 4;
         formPanel.add(new JLabel("Reason for Visit:"), gbc);
@@ -299,56 +366,70 @@ public class PatientDashboard extends JFrame {
         // FIXED: Lambda expression replaced
         bookButton.addActionListener(new ActionListener() {
             public void actionPerformed(ActionEvent e) {
-                try {
-                    Connection conn = DatabaseConnection.getConnection();
-                    
-                    // Generate appointment ID
-                    String appointmentId = "A" + String.format("%03d", getNextAppointmentId());
-                    
-                    // Get patient ID (current logged in user)
-                    String patientId = "P001"; // Hardcoded for demo
-                    
-                    // Get doctor ID from selection
-                    String doctorId = getDoctorIdFromName((String) doctorCombo.getSelectedItem());
-                    
-                    String query = "INSERT INTO appointments (appointment_id, patient_id, doctor_id, " +
-                                  "appointment_date, appointment_time, type, status) VALUES (?, ?, ?, ?, ?, ?, 'Scheduled')";
-                    
-                    PreparedStatement pstmt = conn.prepareStatement(query);
-                    pstmt.setString(1, appointmentId);
-                    pstmt.setString(2, patientId);
-                    pstmt.setString(3, doctorId);
-                    pstmt.setString(4, dateField.getText());
-                    pstmt.setString(5, (String) timeCombo.getSelectedItem() + ":00");
-                    pstmt.setString(6, (String) typeCombo.getSelectedItem());
-                    
-                    int rowsAffected = pstmt.executeUpdate();
-                    pstmt.close();
-                    
-                    if (rowsAffected > 0) {
+                String doctorName = (String) doctorCombo.getSelectedItem();
+                String type = (String) typeCombo.getSelectedItem();
+                String slotLabel = (String) timeCombo.getSelectedItem();
+                LocalDate date = parseDate(dateField.getText());
+                LocalTime time = SlotAvailability.slotTime(slotLabel);
+                if (doctorName == null || date == null || time == null) {
+                    JOptionPane.showMessageDialog(PatientDashboard.this,
+                        "Please pick a doctor, a date (YYYY-MM-DD) and one of the free times", "Error",
+                        JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+                String patientId = session.getPatientId();
+
+                // Directory lookup, id allocation and the INSERT all hit the database, so off the EDT.
+                // Disabled until it answers so a second click cannot queue another attempt.
+                bookButton.setEnabled(false);
+                loader.submit("book", () -> {
+                    Booking booking = new Booking();
+                    booking.doctorId = getDoctorIdFromName(doctorName);
+                    if (booking.doctorId == null) return booking;
+                    booking.appointmentId = IdAllocator.APPOINTMENTS.nextId();
+                    try (Connection conn = DatabaseConnection.getConnection()) {
+                        // Reserves the slot first, so a concurrent booking for it is refused, not doubled
+                        booking.booked = SlotAvailability.book(conn, booking.appointmentId, patientId,
+                            booking.doctorId, date, time, type);
+                    }
+                    return booking;
+                }, booking -> {
+                    bookButton.setEnabled(true);
+                    if (booking.doctorId == null) {
+                        timeCombo.removeAllItems();
+                        JOptionPane.showMessageDialog(PatientDashboard.this,
+                            doctorName + " is not available for booking.", "Doctor Unavailable",
+                            JOptionPane.WARNING_MESSAGE);
+                        return;
+                    }
+                    if (booking.booked) {
+                        DashboardMetricsService.invalidate();
+                        PDFReportService.reportDataChanged();
                         String confirmation = "Appointment Booked Successfully!\n\n" +
-                            "Appointment ID: " + appointmentId + "\n" +
-                            "Doctor: " + doctorCombo.getSelectedItem() + "\n" +
-                            "Type: " + typeCombo.getSelectedItem() + "\n" +
-                            "Date: " + dateField.getText() + "\n" +
-                            "Time: " + timeCombo.getSelectedItem() + "\n\n" +
+                            "Appointment ID: " + booking.appointmentId + "\n" +
+                            "Doctor: " + doctorName + "\n" +
+                            "Type: " + type + "\n" +
+                            "Date: " + date + "\n" +
+                            "Time: " + slotLabel + "\n\n" +
                             "You will receive a confirmation email shortly.";
-                        
-                        JOptionPane.showMessageDialog(PatientDashboard.this, confirmation, "Booking Confirmed", 
+
+                        JOptionPane.showMessageDialog(PatientDashboard.this, confirmation, "Booking Confirmed",
                             JOptionPane.INFORMATION_MESSAGE);
-                        
+
                         // Refresh appointment history
                         loadAppointmentData();
                     } else {
-                        JOptionPane.showMessageDialog(PatientDashboard.this, "Failed to book appointment!", "Error",
-                            JOptionPane.ERROR_MESSAGE);
+                        JOptionPane.showMessageDialog(PatientDashboard.this,
+                            "That time has just been booked. Please pick another one.", "Slot Taken",
+                            JOptionPane.WARNING_MESSAGE);
                     }
-                    
-                } catch (SQLException ex) {
+                    refreshSlots.run();
+                }, ex -> {
+                    bookButton.setEnabled(true);
                     JOptionPane.showMessageDialog(PatientDashboard.this, "Database Error: " + ex.getMessage(), "Error",
                         JOptionPane.ERROR_MESSAGE);
                     ex.printStackTrace();
-                }
+                });
             }
         });
         formPanel.add(bookButton, gbc);
@@ -360,46 +441,7 @@ public class PatientDashboard extends JFrame {
     }
 
     private void loadAppointmentData() {
-        try {
-            appointmentTableModel.setRowCount(0);
-            Connection conn = DatabaseConnection.getConnection();
-            
-            // CORRECTED QUERY - Simple version without complex joins
-            String query = "SELECT a.appointment_id, " +
-                 "d.name as doctor_name, " +
-                 "a.appointment_date, " +
-                 "a.appointment_time, " +
-                 "a.status, " +
-                 "a.type " +
-                 "FROM appointments a " +
-                 "JOIN doctors d ON a.doctor_id = d.doctor_id " +
-                 "WHERE a.patient_id = 'P001' " +
-                 "ORDER BY a.appointment_date DESC";
-            
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery(query);
-            
-            while (rs.next()) {
-                appointmentTableModel.addRow(new Object[]{
-                    rs.getString("appointment_id"),
-                    rs.getString("doctor_name"),
-                    rs.getString("appointment_date"),
-                    rs.getString("appointment_time"),
-                    rs.getString("status"),
-                    rs.getString("type")
-                });
-            }
-            
-            rs.close();
-            stmt.close();
-            
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this, 
-                "Error loading appointments: " + e.getMessage() + 
-                "\n\nTry re-login or check database connection.", 
-                "Database Error", JOptionPane.ERROR_MESSAGE);
-            e.printStackTrace();
-        }
+        appointmentTableModel.reload();
     }
 
     private void viewAppointmentDetails(JTable table) {
@@ -435,52 +477,50 @@ public class PatientDashboard extends JFrame {
             JOptionPane.YES_NO_OPTION);
 
         if (confirm == JOptionPane.YES_OPTION) {
+            String appointmentId = (String) table.getValueAt(selectedRow, 0);
+            Object[] row = appointmentTableModel.getRow(selectedRow);
+            if (row == null) return;
+            long rowVersion = (Long) row[ROW_VERSION_INDEX];
+
             // Update database
-            try {
-                Connection conn = DatabaseConnection.getConnection();
-                String appointmentId = (String) table.getValueAt(selectedRow, 0);
-                String query = "UPDATE appointments SET status = 'Cancelled' WHERE appointment_id = ?";
-                
-                PreparedStatement pstmt = conn.prepareStatement(query);
-                pstmt.setString(1, appointmentId);
-                pstmt.executeUpdate();
-                pstmt.close();
-                
-                // Update table
-                table.setValueAt("Cancelled", selectedRow, 4);
-                JOptionPane.showMessageDialog(this, "Appointment cancelled successfully!");
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                // Only this patient's own appointments, and only as shown; the slot becomes free again
+                if (!SlotAvailability.cancel(conn, appointmentId, session.getPatientId(), rowVersion)) {
+                    JOptionPane.showMessageDialog(this,
+                        "This appointment was changed or cancelled elsewhere.\nIt has been refreshed - please check it again.",
+                        "Appointment Changed", JOptionPane.WARNING_MESSAGE);
+                } else {
+                    DashboardMetricsService.invalidate();
+                    PDFReportService.reportDataChanged();
+                    JOptionPane.showMessageDialog(this, "Appointment cancelled successfully!");
+                }
                 
             } catch (SQLException e) {
                 JOptionPane.showMessageDialog(this, "Error cancelling appointment: " + e.getMessage());
             }
+            // Either way, re-read just this row so its status and version match the database
+            appointmentTableModel.refreshRows("a.appointment_id", Collections.singleton(appointmentId));
         }
     }
 
     // Helper methods for appointment booking
-    private int getNextAppointmentId() {
+    private static LocalDate parseDate(String text) {
         try {
-            Connection conn = DatabaseConnection.getConnection();
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery("SELECT MAX(CAST(SUBSTRING(appointment_id, 2) AS UNSIGNED)) FROM appointments");
-            
-            int maxId = 0;
-            if (rs.next()) {
-                maxId = rs.getInt(1);
-            }
-            
-            rs.close();
-            stmt.close();
-            return maxId + 1;
-        } catch (SQLException e) {
-            return 1;
+            return LocalDate.parse(text.trim());
+        } catch (DateTimeParseException e) {
+            return null;
         }
     }
 
+    // null when the name is not (or no longer) in the doctor directory
     private String getDoctorIdFromName(String doctorName) {
-        // Map doctor names to IDs - you'll need to adjust this based on your actual data
-        if (doctorName.contains("Amit Sharma")) return "D001";
-        if (doctorName.contains("Priya Patel")) return "D002"; 
-        if (doctorName.contains("Sanjay Gupta")) return "D003";
-        return "D001"; // Default
+        return DirectoryCache.getDoctorId(doctorName);
+    }
+
+    // Outcome of a booking job, handed back to the EDT
+    private static class Booking {
+        String doctorId;      // null = doctor not found, nothing was attempted
+        String appointmentId;
+        boolean booked;       // false = the slot was taken first
     }
 }
\ No newline at end of file
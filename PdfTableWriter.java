@@ -0,0 +1,173 @@
+// PdfTableWriter.java - Writes a titled table to PDF row by row, starting new pages as they fill up
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+
+/*
+  Rows are drawn as they are added; when a page is full its content stream
+  is closed and a new page (with the column headers repeated) is started,
+  so nothing is ever cut off. The document buffers page content in a temp
+  file (MemoryUsageSetting.setupTempFileOnly) instead of on the heap, which
+  keeps memory flat however many rows the report has.
+
+  Fonts are created per writer rather than using the shared PDType1Font
+  constants, whose encoding caches are not thread-safe, so several writers
+  can render parts of one report in parallel (see PDFReportService).
+
+  Usage: heading lines first, then addRow() per row, then save(file).
+*/
+public class PdfTableWriter implements Closeable {
+    private static final float TOP_Y = 750;
+    private static final float BOTTOM_Y = 60;
+    private static final float LEFT_X = 50;
+    private static final float ROW_HEIGHT = 12;
+    private static final float FOOTER_Y = 30;
+
+    private final PDDocument document = new PDDocument(MemoryUsageSetting.setupTempFileOnly());
+    private final PDFont regular = standardFont("Helvetica");
+    private final PDFont bold = standardFont("Helvetica-Bold");
+    private final String[] headers;
+    private final float[] columnX;
+    private final int[] maxChars;
+
+    private PDPageContentStream content;
+    private float y;
+    private int pageCount = 0;
+    private long rowCount = 0;
+    private boolean tableStarted = false;
+    private String footerLabel = "";
+
+    // columnX: left edge of each column; maxChars: longer cell text is shortened with "..."
+    public PdfTableWriter(String[] headers, float[] columnX, int[] maxChars) throws IOException {
+        this.headers = headers;
+        this.columnX = columnX;
+        this.maxChars = maxChars;
+        newPage();
+    }
+
+    // A line of text above the table (title, summary), followed by gap points of space
+    public void heading(String text, boolean boldFont, float size, float indent, float gap) throws IOException {
+        if (y - gap < BOTTOM_Y) newPage();
+        text(text, boldFont ? bold : regular, size, LEFT_X + indent, y);
+        y -= gap;
+    }
+
+    // Shown before the page number, e.g. the date range of a report part
+    public void setFooterLabel(String label) {
+        footerLabel = label == null ? "" : label;
+    }
+
+    public void addRow(String... cells) throws IOException {
+        if (!tableStarted) {
+            tableStarted = true;
+            columnHeaders();
+        }
+        if (y < BOTTOM_Y) {
+            newPage();
+            columnHeaders();
+        }
+        content.setFont(regular, 8);
+        for (int i = 0; i < columnX.length && i < cells.length; i++) {
+            content.beginText();
+            content.newLineAtOffset(columnX[i], y);
+            content.showText(shorten(printable(cells[i]), maxChars[i]));
+            content.endText();
+        }
+        y -= ROW_HEIGHT;
+        rowCount++;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    public void save(File file) throws IOException {
+        finishPage();
+        document.save(file);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            finishPage();
+        } finally {
+            document.close();
+        }
+    }
+
+    private void columnHeaders() throws IOException {
+        content.setFont(bold, 9);
+        for (int i = 0; i < columnX.length; i++) {
+            content.beginText();
+            content.newLineAtOffset(columnX[i], y);
+            content.showText(headers[i]);
+            content.endText();
+        }
+        y -= ROW_HEIGHT + 3;
+    }
+
+    private void newPage() throws IOException {
+        finishPage();
+        PDPage page = new PDPage(PDRectangle.LETTER);
+        document.addPage(page);
+        content = new PDPageContentStream(document, page);
+        pageCount++;
+        y = TOP_Y;
+    }
+
+    // Footer, then close the stream so the page's content goes to the scratch file
+    private void finishPage() throws IOException {
+        if (content == null) return;
+        String footer = footerLabel.isEmpty() ? "Page " + pageCount : footerLabel + " - page " + pageCount;
+        text(footer, regular, 8, LEFT_X, FOOTER_Y);
+        content.close();
+        content = null;
+    }
+
+    private void text(String text, PDFont font, float size, float x, float atY) throws IOException {
+        content.setFont(font, size);
+        content.beginText();
+        content.newLineAtOffset(x, atY);
+        content.showText(text);
+        content.endText();
+    }
+
+    // Standard 14 font with WinAnsi encoding, private to this document
+    private static PDFont standardFont(String name) throws IOException {
+        COSDictionary dict = new COSDictionary();
+        dict.setItem(COSName.TYPE, COSName.FONT);
+        dict.setItem(COSName.SUBTYPE, COSName.TYPE1);
+        dict.setItem(COSName.BASE_FONT, COSName.getPDFName(name));
+        dict.setItem(COSName.ENCODING, COSName.WIN_ANSI_ENCODING);
+        return new PDType1Font(dict);
+    }
+
+    private static String shorten(String text, int maxLength) {
+        if (text.length() <= maxLength) return text;
+        return text.substring(0, maxLength - 3) + "...";
+    }
+
+    // The standard fonts only cover Latin-1; one odd name must not abort a long report
+    private static String printable(String text) {
+        if (text == null) return "";
+        StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            sb.append(c >= 0x20 && c <= 0xFF && (c < 0x7F || c > 0x9F) ? c : '?');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,137 @@
+// QueryPlanCheck.java - Fails if a hot query would scan a whole large table
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/*
+  Runs EXPLAIN on the queries the UI and reports issue most often (copies of
+  them, with sample parameters) and exits with status 1 if any of them reads
+  appointments, users, lost_found_items or patient_summary with a full table scan
+  (type = ALL). Run it after schema or query changes, against a database
+  with realistic row counts - on near-empty tables MySQL may prefer a scan
+  even when a usable index exists.
+
+    java QueryPlanCheck
+*/
+public class QueryPlanCheck {
+    // The small lookup tables (doctors, patients) may be scanned; these may not
+    private static final Set<String> LARGE_TABLES =
+        new HashSet<>(Arrays.asList("appointments", "users", "lost_found_items", "patient_summary"));
+
+    private static class HotQuery {
+        final String name;
+        final String sql;
+        final Object[] params;
+
+        HotQuery(String name, String sql, Object... params) {
+            this.name = name;
+            this.sql = sql;
+            this.params = params;
+        }
+    }
+
+    private static final List<HotQuery> QUERIES = Arrays.asList(
+        new HotQuery("Login (LoginFrame)",
+            "SELECT u.user_id, u.name, u.role, d.doctor_id, p.patient_id FROM users u " +
+            "LEFT JOIN doctors d ON d.user_id = u.user_id " +
+            "LEFT JOIN patients p ON p.user_id = u.user_id " +
+            "WHERE u.username = ? AND u.password = ? AND u.role = ? AND u.status = 'Active'",
+            "admin", "admin123", "Admin"),
+        new HotQuery("Doctor appointments page (DoctorDashboard)",
+            "SELECT a.appointment_id, u.name as patient_name, a.appointment_date, a.appointment_time, a.status " +
+            "FROM appointments a JOIN patients p ON a.patient_id = p.patient_id " +
+            "JOIN users u ON p.user_id = u.user_id " +
+            "WHERE a.doctor_id = ? ORDER BY a.appointment_date DESC, a.appointment_id DESC LIMIT 100",
+            "D001"),
+        new HotQuery("Doctor patient list page (DoctorDashboard)",
+            "SELECT s.patient_id, s.name, s.date_of_birth, s.last_visit, s.latest_diagnosis " +
+            "FROM patient_summary s WHERE s.doctor_id = ? ORDER BY s.patient_id LIMIT 100",
+            "D001"),
+        new HotQuery("Patient appointment history page (PatientDashboard)",
+            "SELECT a.appointment_id, d.name as doctor_name, a.appointment_date, a.appointment_time, a.status, a.type " +
+            "FROM appointments a JOIN doctors d ON a.doctor_id = d.doctor_id " +
+            "WHERE a.patient_id = ? ORDER BY a.appointment_date DESC, a.appointment_id DESC LIMIT 100",
+            "P001"),
+        new HotQuery("Doctor slot availability (SlotAvailability)",
+            "SELECT appointment_date, appointment_time FROM appointments " +
+            "WHERE doctor_id = ? AND appointment_date >= CURDATE() AND appointment_date < CURDATE() + INTERVAL 14 DAY " +
+            "AND status <> 'Cancelled'",
+            "D001"),
+        new HotQuery("Daily report rows (PDFReportService)",
+            "SELECT a.appointment_id, a.appointment_date, a.appointment_time, a.status FROM appointments a " +
+            "WHERE a.appointment_date >= CURDATE() AND a.appointment_date < CURDATE() + INTERVAL 1 DAY " +
+            "ORDER BY a.appointment_time"),
+        new HotQuery("Monthly report summary (PDFReportService)",
+            "SELECT COUNT(*), SUM(CASE WHEN status = 'Scheduled' THEN 1 ELSE 0 END) FROM appointments " +
+            "WHERE appointment_date >= (CURDATE() - INTERVAL (DAYOFMONTH(CURDATE()) - 1) DAY) " +
+            "AND appointment_date < (CURDATE() - INTERVAL (DAYOFMONTH(CURDATE()) - 1) DAY) + INTERVAL 1 MONTH"),
+        new HotQuery("Scheduled appointments by date",
+            "SELECT appointment_id FROM appointments WHERE status = 'Scheduled' " +
+            "AND appointment_date >= CURDATE() AND appointment_date < CURDATE() + INTERVAL 7 DAY"),
+        new HotQuery("Active lost & found page (LostAndFoundFrame)",
+            "SELECT item_id, item_name, category, item_type, date_reported FROM lost_found_items " +
+            "WHERE status = 'Active' ORDER BY date_reported DESC, item_id DESC LIMIT 100"),
+        new HotQuery("Lost & found delta poll (LostAndFoundSync)",
+            "SELECT item_id FROM lost_found_items WHERE last_modified > ? ORDER BY last_modified",
+            new Timestamp(System.currentTimeMillis() - 60_000))
+    );
+
+    public static void main(String[] args) {
+        int failures = 0;
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            for (HotQuery q : QUERIES) {
+                List<String> scans = fullScans(conn, q);
+                if (scans.isEmpty()) {
+                    System.out.println("✅ " + q.name);
+                } else {
+                    failures++;
+                    System.out.println("❌ " + q.name + ": full scan of " + String.join(", ", scans));
+                }
+            }
+        } catch (SQLException e) {
+            System.out.println("❌ Query plan check failed: " + e.getMessage());
+            e.printStackTrace();
+            failures++;
+        } finally {
+            DatabaseConnection.closeConnection();
+        }
+        if (failures > 0) {
+            System.out.println(failures + " hot queries need attention");
+            System.exit(1);
+        }
+    }
+
+    // Large tables the plan reads with type = ALL
+    private static List<String> fullScans(Connection conn, HotQuery q) throws SQLException {
+        List<String> scans = new ArrayList<>();
+        try (PreparedStatement pstmt = conn.prepareStatement("EXPLAIN " + q.sql)) {
+            for (int i = 0; i < q.params.length; i++) {
+                pstmt.setObject(i + 1, q.params[i]);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    String table = rs.getString("table");
+                    String type = rs.getString("type");
+                    String realTable = tableFor(q.sql, table);
+                    if ("ALL".equals(type) && LARGE_TABLES.contains(realTable)) {
+                        scans.add(realTable + " (~" + rs.getLong("rows") + " rows)");
+                    }
+                }
+            }
+        }
+        return scans;
+    }
+
+    // EXPLAIN reports aliases (a, u); map them back to table names
+    private static String tableFor(String sql, String alias) {
+        if (alias == null) return null;
+        String[] words = sql.split("\\s+");
+        for (int i = 1; i < words.length; i++) {
+            if (words[i].equals(alias) && LARGE_TABLES.contains(words[i - 1])) return words[i - 1];
+        }
+        return alias;
+    }
+}
@@ -0,0 +1,210 @@
+// ReportJobQueue.java - Renders reports on a small background pool with priorities, progress and cancel
+import javax.swing.SwingUtilities;
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+  Process-wide. Reports run on WORKER_THREADS "Report-Worker" threads
+  (well under the connection pool size); waiting jobs are taken by priority,
+  then in submission order.
+
+  Jobs are keyed by what they produce: a second request for a key that is
+  queued or rendering just subscribes to the same job, and a finished file
+  is handed out again for REUSE_MS (-Dhms.reportReuseMs) as long as it is
+  still on disk. Each submit() returns a Request; cancelling it unsubscribes
+  that caller, and the job itself stops once nobody is waiting for it.
+
+  Listener callbacks run on the EDT.
+*/
+public class ReportJobQueue {
+    private static final int WORKER_THREADS = Integer.getInteger("hms.reportWorkers", 2);
+    private static final long REUSE_MS = Long.getLong("hms.reportReuseMs", 5 * 60_000L);
+
+    public static final int PRIORITY_HIGH = 0;
+    public static final int PRIORITY_NORMAL = 5;
+    public static final int PRIORITY_LOW = 10;
+
+    // Jobs are Comparable, so the pool's queue hands out the most urgent one first
+    private static final ExecutorService EXECUTOR = new ThreadPoolExecutor(
+        WORKER_THREADS, WORKER_THREADS, 30, TimeUnit.SECONDS,
+        new PriorityBlockingQueue<>(),
+        r -> {
+            Thread t = new Thread(r, "Report-Worker");
+            t.setDaemon(true);
+            return t;
+        });
+
+    private static final AtomicLong sequence = new AtomicLong();
+    private static final Map<String, Job> active = new HashMap<>();
+    private static final Map<String, FinishedReport> finished = new HashMap<>();
+
+    // Handed to the task so it can report progress and stop early
+    public interface Progress {
+        void update(long done, long total);
+        boolean isCancelled();
+    }
+
+    public interface Task {
+        File render(Progress progress) throws Exception;
+    }
+
+    public interface Listener {
+        void progress(int percent);
+        void finished(File file);
+        void failed(Exception e);
+        void cancelled();
+    }
+
+    public static synchronized Request submit(String key, int priority, Task task, Listener listener) {
+        FinishedReport done = finished.get(key);
+        if (done != null) {
+            if (System.currentTimeMillis() - done.finishedAt < REUSE_MS && done.file.exists()) {
+                System.out.println("Report " + key + " served from " + done.file.getName());
+                Request request = new Request(null, listener);
+                SwingUtilities.invokeLater(() -> listener.finished(done.file));
+                return request;
+            }
+            finished.remove(key);
+        }
+
+        Job job = active.get(key);
+        if (job == null) {
+            job = new Job(key, priority, task);
+            active.put(key, job);
+            EXECUTOR.execute(job);
+        }
+        Request request = new Request(job, listener);
+        job.listeners.add(request);
+        if (job.lastPercent > 0) {
+            int percent = job.lastPercent;
+            SwingUtilities.invokeLater(() -> listener.progress(percent));
+        }
+        return request;
+    }
+
+    /*
+      Call after the underlying data changed: forgets the finished file, and
+      a job already running for the key (it may have read the old rows) still
+      answers its current callers but is not reused - later requests start
+      a fresh one.
+    */
+    public static synchronized void invalidate(String key) {
+        finished.remove(key);
+        Job running = active.remove(key);
+        if (running != null) running.stale = true;
+    }
+
+    // False if the request had already finished
+    private static synchronized boolean unsubscribe(Request request) {
+        Job job = request.job;
+        if (job == null || job.done || !job.listeners.remove(request)) return false;
+        if (job.listeners.isEmpty()) {
+            job.cancelled = true;
+            if (active.get(job.key) == job) active.remove(job.key);
+            System.out.println("Report " + job.key + " cancelled");
+        }
+        return true;
+    }
+
+    private static synchronized List<Request> complete(Job job, File file) {
+        job.done = true;
+        if (active.get(job.key) == job) active.remove(job.key);
+        if (file != null && !job.stale) finished.put(job.key, new FinishedReport(file, System.currentTimeMillis()));
+        return new ArrayList<>(job.listeners);
+    }
+
+    private static synchronized List<Request> listenersOf(Job job) {
+        return new ArrayList<>(job.listeners);
+    }
+
+    // One subscription to a job; cancel() only affects this caller
+    public static class Request {
+        private final Job job;
+        private final Listener listener;
+
+        private Request(Job job, Listener listener) {
+            this.job = job;
+            this.listener = listener;
+        }
+
+        public void cancel() {
+            if (unsubscribe(this)) SwingUtilities.invokeLater(listener::cancelled);
+        }
+    }
+
+    private static class Job implements Runnable, Comparable<Job>, Progress {
+        final String key;
+        final int priority;
+        final long order = sequence.incrementAndGet();
+        final Task task;
+        final List<Request> listeners = new ArrayList<>();
+        volatile boolean cancelled = false;
+        boolean done = false;
+        // Data changed while rendering: the file goes to current listeners only
+        boolean stale = false;
+        volatile int lastPercent = 0;
+
+        Job(String key, int priority, Task task) {
+            this.key = key;
+            this.priority = priority;
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            if (cancelled) return;
+            long start = System.currentTimeMillis();
+            try {
+                File file = task.render(this);
+                if (cancelled) throw new CancellationException();
+                List<Request> requests = complete(this, file);
+                System.out.println("Report " + key + " rendered in " + (System.currentTimeMillis() - start) + " ms");
+                SwingUtilities.invokeLater(() -> {
+                    for (Request r : requests) r.listener.finished(file);
+                });
+            } catch (CancellationException e) {
+                complete(this, null);
+            } catch (Exception e) {
+                List<Request> requests = complete(this, null);
+                SwingUtilities.invokeLater(() -> {
+                    for (Request r : requests) r.listener.failed(e);
+                });
+            }
+        }
+
+        @Override
+        public void update(long done, long total) {
+            int percent = total <= 0 ? 0 : (int) Math.min(100, done * 100 / total);
+            // Only whole-percent changes reach the EDT
+            if (percent == lastPercent) return;
+            lastPercent = percent;
+            List<Request> requests = listenersOf(this);
+            SwingUtilities.invokeLater(() -> {
+                for (Request r : requests) r.listener.progress(percent);
+            });
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public int compareTo(Job other) {
+            if (priority != other.priority) return Integer.compare(priority, other.priority);
+            return Long.compare(order, other.order);
+        }
+    }
+
+    private static class FinishedReport {
+        final File file;
+        final long finishedAt;
+
+        FinishedReport(File file, long finishedAt) {
+            this.file = file;
+            this.finishedAt = finishedAt;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+// ReportMonthCache.java - Frozen per-month parts of the "all" appointments report
+import java.io.*;
+import java.nio.file.*;
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/*
+  Every closed month (before the current one) is rendered once into
+  <hms.reportCacheDir>/appointments-YYYY-MM.pdf, with its summary counts in
+  a .properties file next to it. The "all" report then renders only the
+  current and future months live and appends the cached months.
+
+  A cached month is valid while its fingerprint - row count and
+  MAX(last_modified) of its appointments - is unchanged. Any insert, update
+  or delete dated in that month changes one of the two, so only that month
+  is rebuilt; moving an appointment to another date changes both months.
+  The fingerprints come from one GROUP BY over the
+  (appointment_date, last_modified) index.
+
+  Parts also print patient and doctor names, which no appointment row
+  changes when they are edited. So the fingerprint also carries
+  MAX(users.name_changed_at) (set by a trigger, see SchemaMigrator), and any
+  rename rebuilds all cached months - renames are rare, and edits to other
+  user fields do not count. Deleting a user cannot drop rows from
+  a month: users with a doctor or patient record cannot be deleted (foreign
+  keys, and the check in AdminDashboard).
+*/
+public class ReportMonthCache {
+    private static final String DIRECTORY = System.getProperty("hms.reportCacheDir",
+        System.getProperty("user.home") + File.separator + ".hms" + File.separator + "report-cache");
+    // Bump when the rendered layout changes so old parts are rebuilt
+    private static final int FORMAT_VERSION = 1;
+
+    // One closed month and its current fingerprint
+    public static class Month {
+        final LocalDate firstDay;
+        final long rows;
+        final Timestamp lastModified;
+        // Same for every month: when any user's name last changed
+        final Timestamp namesChanged;
+
+        Month(LocalDate firstDay, long rows, Timestamp lastModified, Timestamp namesChanged) {
+            this.firstDay = firstDay;
+            this.rows = rows;
+            this.lastModified = lastModified;
+            this.namesChanged = namesChanged;
+        }
+
+        public LocalDate getFirstDay() {
+            return firstDay;
+        }
+
+        public LocalDate getNextMonth() {
+            return firstDay.plusMonths(1);
+        }
+
+        public String getKey() {
+            return firstDay.toString().substring(0, 7);
+        }
+    }
+
+    // What a valid cached month provides: its rendered rows and its summary counts
+    public static class Entry {
+        final File pdf;
+        final PDFReportService.Summary summary;
+
+        Entry(File pdf, PDFReportService.Summary summary) {
+            this.pdf = pdf;
+            this.summary = summary;
+        }
+
+        public File getPdf() {
+            return pdf;
+        }
+
+        public PDFReportService.Summary getSummary() {
+            return summary;
+        }
+    }
+
+    public static LocalDate currentMonthStart() {
+        return LocalDate.now().withDayOfMonth(1);
+    }
+
+    // Months before the current one that have appointments, newest first
+    public static List<Month> closedMonths(Connection conn) throws SQLException {
+        String query = "SELECT YEAR(appointment_date) AS y, MONTH(appointment_date) AS m, " +
+                       "COUNT(*) AS total, MAX(last_modified) AS last_modified " +
+                       "FROM appointments WHERE appointment_date < ? " +
+                       "GROUP BY y, m ORDER BY y DESC, m DESC";
+        Timestamp namesChanged;
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT MAX(name_changed_at) FROM users")) {
+            rs.next();
+            namesChanged = rs.getTimestamp(1);
+        }
+
+        List<Month> months = new ArrayList<>();
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setDate(1, Date.valueOf(currentMonthStart()));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    months.add(new Month(LocalDate.of(rs.getInt("y"), rs.getInt("m"), 1),
+                                         rs.getLong("total"), rs.getTimestamp("last_modified"), namesChanged));
+                }
+            }
+        }
+        return months;
+    }
+
+    // The cached part if it still matches the month's fingerprint, else null
+    public static Entry lookup(Month month) {
+        Path pdf = pdfPath(month);
+        Path meta = metaPath(month);
+        if (!Files.exists(pdf) || !Files.exists(meta)) return null;
+
+        Properties p = new Properties();
+        try (InputStream in = Files.newInputStream(meta)) {
+            p.load(in);
+        } catch (IOException e) {
+            return null;
+        }
+        if (!String.valueOf(FORMAT_VERSION).equals(p.getProperty("format"))) return null;
+        if (!String.valueOf(month.rows).equals(p.getProperty("rows"))) return null;
+        if (!String.valueOf(month.lastModified).equals(p.getProperty("lastModified"))) return null;
+        if (!String.valueOf(month.namesChanged).equals(p.getProperty("namesChanged"))) return null;
+
+        PDFReportService.Summary summary = new PDFReportService.Summary();
+        summary.total = Long.parseLong(p.getProperty("total", "0"));
+        summary.scheduled = Long.parseLong(p.getProperty("scheduled", "0"));
+        summary.confirmed = Long.parseLong(p.getProperty("confirmed", "0"));
+        summary.completed = Long.parseLong(p.getProperty("completed", "0"));
+        return new Entry(pdf.toFile(), summary);
+    }
+
+    // Moves a freshly rendered part into the cache under the fingerprint read before rendering
+    public static Entry store(Month month, PDFReportService.Summary summary, File renderedPdf) throws IOException {
+        Path dir = Paths.get(DIRECTORY);
+        Files.createDirectories(dir);
+        Path pdf = pdfPath(month);
+        Files.move(renderedPdf.toPath(), pdf, StandardCopyOption.REPLACE_EXISTING);
+
+        Properties p = new Properties();
+        p.setProperty("format", String.valueOf(FORMAT_VERSION));
+        p.setProperty("rows", String.valueOf(month.rows));
+        p.setProperty("lastModified", String.valueOf(month.lastModified));
+        p.setProperty("namesChanged", String.valueOf(month.namesChanged));
+        p.setProperty("total", String.valueOf(summary.total));
+        p.setProperty("scheduled", String.valueOf(summary.scheduled));
+        p.setProperty("confirmed", String.valueOf(summary.confirmed));
+        p.setProperty("completed", String.valueOf(summary.completed));
+
+        // Metadata last and atomically: a half-written entry never looks valid
+        Path temp = Files.createTempFile(dir, month.getKey(), ".tmp");
+        try (OutputStream out = Files.newOutputStream(temp)) {
+            p.store(out, "Appointments report part " + month.getKey());
+        }
+        Files.move(temp, metaPath(month), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return new Entry(pdf.toFile(), summary);
+    }
+
+    private static Path pdfPath(Month month) {
+        return Paths.get(DIRECTORY, "appointments-" + month.getKey() + ".pdf");
+    }
+
+    private static Path metaPath(Month month) {
+        return Paths.get(DIRECTORY, "appointments-" + month.getKey() + ".properties");
+    }
+}
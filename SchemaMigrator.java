@@ -0,0 +1,371 @@
+// SchemaMigrator.java - Versioned schema: creates the tables and brings older databases up to date
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+  Runs once per connection pool, before the first connection is handed out
+  (see DatabaseConnection). schema_version records which migrations have
+  been applied; only newer ones run, in order, under a MySQL named lock so
+  two clients starting together do not both apply them.
+
+  Migrations never change once released - add a new one at the end.
+  Column and index steps check information_schema first, so databases that
+  already got a column from an older build (or from the original SQL dump)
+  are upgraded without errors.
+
+  Run directly to migrate without starting the UI:
+    java SchemaMigrator
+*/
+public class SchemaMigrator {
+    private static final String LOCK_NAME = "hms_schema_migration";
+    private static final int LOCK_TIMEOUT_SECONDS = 60;
+
+    private interface Step {
+        void apply(Connection conn) throws SQLException;
+    }
+
+    private static class Migration {
+        final int version;
+        final String description;
+        final List<Step> steps;
+
+        Migration(int version, String description, Step... steps) {
+            this.version = version;
+            this.description = description;
+            this.steps = Arrays.asList(steps);
+        }
+    }
+
+    private static final List<Migration> MIGRATIONS = new ArrayList<>();
+
+    static {
+        MIGRATIONS.add(new Migration(1, "Base tables",
+            sql("CREATE TABLE IF NOT EXISTS users (" +
+                "user_id VARCHAR(20) PRIMARY KEY, " +
+                "username VARCHAR(50) NOT NULL UNIQUE, " +
+                "password VARCHAR(255) NOT NULL, " +
+                "role VARCHAR(20) NOT NULL, " +
+                "name VARCHAR(100) NOT NULL, " +
+                "email VARCHAR(100), " +
+                "status VARCHAR(20) NOT NULL DEFAULT 'Active', " +
+                "created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP)"),
+            sql("CREATE TABLE IF NOT EXISTS doctors (" +
+                "doctor_id VARCHAR(20) PRIMARY KEY, " +
+                "user_id VARCHAR(20) NOT NULL, " +
+                "name VARCHAR(100), " +
+                "specialization VARCHAR(100), " +
+                "FOREIGN KEY (user_id) REFERENCES users(user_id))"),
+            sql("CREATE TABLE IF NOT EXISTS patients (" +
+                "patient_id VARCHAR(20) PRIMARY KEY, " +
+                "user_id VARCHAR(20) NOT NULL, " +
+                "date_of_birth DATE, " +
+                "FOREIGN KEY (user_id) REFERENCES users(user_id))"),
+            sql("CREATE TABLE IF NOT EXISTS appointments (" +
+                "appointment_id VARCHAR(20) PRIMARY KEY, " +
+                "patient_id VARCHAR(20) NOT NULL, " +
+                "doctor_id VARCHAR(20) NOT NULL, " +
+                "appointment_date DATE NOT NULL, " +
+                "appointment_time TIME NOT NULL, " +
+                "type VARCHAR(50), " +
+                "status VARCHAR(20) NOT NULL DEFAULT 'Scheduled', " +
+                "FOREIGN KEY (patient_id) REFERENCES patients(patient_id), " +
+                "FOREIGN KEY (doctor_id) REFERENCES doctors(doctor_id))"),
+            sql("CREATE TABLE IF NOT EXISTS medical_records (" +
+                "record_id VARCHAR(20) PRIMARY KEY, " +
+                "patient_id VARCHAR(20) NOT NULL, " +
+                "doctor_id VARCHAR(20), " +
+                "diagnosis VARCHAR(255), " +
+                "record_date DATE, " +
+                "FOREIGN KEY (patient_id) REFERENCES patients(patient_id))"),
+            sql("CREATE TABLE IF NOT EXISTS lost_found_items (" +
+                "item_id VARCHAR(20) PRIMARY KEY, " +
+                "item_name VARCHAR(100) NOT NULL, " +
+                "category VARCHAR(50), " +
+                "description TEXT, " +
+                "location_lost VARCHAR(255), " +
+                "location_found VARCHAR(255), " +
+                "item_type VARCHAR(10) NOT NULL, " +
+                "image_data LONGBLOB, " +
+                "reported_by VARCHAR(100), " +
+                "contact_info VARCHAR(255), " +
+                "date_reported DATE, " +
+                "status VARCHAR(20) NOT NULL DEFAULT 'Active')")));
+
+        MIGRATIONS.add(new Migration(2, "ID allocation blocks (IdAllocator)",
+            sql("CREATE TABLE IF NOT EXISTS id_sequences (" +
+                "entity VARCHAR(32) PRIMARY KEY, " +
+                "next_value BIGINT NOT NULL)")));
+
+        MIGRATIONS.add(new Migration(3, "Lost & found sync watermark, thumbnails and image store",
+            addColumn("lost_found_items", "last_modified",
+                "TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3)"),
+            addIndex("lost_found_items", "idx_lost_found_last_modified", "last_modified"),
+            addColumn("lost_found_items", "thumbnail_data", "MEDIUMBLOB NULL"),
+            addColumn("lost_found_items", "image_hash", "CHAR(64) NULL")));
+
+        MIGRATIONS.add(new Migration(4, "Appointment change stamps (ReportMonthCache)",
+            addColumn("appointments", "last_modified",
+                "TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3)"),
+            addIndex("appointments", "idx_appointments_date_modified", "appointment_date, last_modified")));
+
+        // Equality column first, then the date range / sort column
+        MIGRATIONS.add(new Migration(5, "Composite indexes for dashboard, report and login queries",
+            addIndex("appointments", "idx_appointments_doctor_date", "doctor_id, appointment_date"),
+            addIndex("appointments", "idx_appointments_patient_date", "patient_id, appointment_date"),
+            addIndex("appointments", "idx_appointments_status_date", "status, appointment_date"),
+            addIndex("lost_found_items", "idx_lost_found_status_date", "status, date_reported"),
+            addIndex("users", "idx_users_login", "username, role, status")));
+
+        // One row per (doctor, patient) pair that has appointments, kept current by triggers,
+        // so the doctor's patient list is a primary-key range read instead of a GROUP BY
+        MIGRATIONS.add(new Migration(6, "patient_summary projection for DoctorDashboard",
+            // Older dumps may lack these; recorded_at orders records entered on the same date
+            addColumn("medical_records", "record_date", "DATE NULL"),
+            addColumn("medical_records", "recorded_at", "TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3)"),
+            addIndex("medical_records", "idx_medical_records_patient_date", "patient_id, record_date"),
+            sql("CREATE TABLE IF NOT EXISTS patient_summary (" +
+                "doctor_id VARCHAR(20) NOT NULL, " +
+                "patient_id VARCHAR(20) NOT NULL, " +
+                "name VARCHAR(100), " +
+                "date_of_birth DATE, " +
+                "last_visit DATE, " +
+                "latest_diagnosis VARCHAR(255), " +
+                "PRIMARY KEY (doctor_id, patient_id), " +
+                "INDEX idx_patient_summary_patient (patient_id))"),
+            // Recomputes one patient's rows from indexed reads; called by every trigger below.
+            // Latest diagnosis = newest record_date, then newest recorded_at, so it is deterministic
+            sql("DROP PROCEDURE IF EXISTS refresh_patient_summary"),
+            sql("CREATE PROCEDURE refresh_patient_summary(IN p_id VARCHAR(20)) " +
+                "BEGIN " +
+                "  DELETE FROM patient_summary WHERE patient_id = p_id; " +
+                "  INSERT INTO patient_summary (doctor_id, patient_id, name, date_of_birth, last_visit, latest_diagnosis) " +
+                "  SELECT x.doctor_id, p.patient_id, u.name, p.date_of_birth, " +
+                "    (SELECT MAX(a.appointment_date) FROM appointments a WHERE a.patient_id = p_id), " +
+                "    (SELECT mr.diagnosis FROM medical_records mr WHERE mr.patient_id = p_id " +
+                "       ORDER BY mr.record_date DESC, mr.recorded_at DESC LIMIT 1) " +
+                "  FROM (SELECT DISTINCT doctor_id FROM appointments WHERE patient_id = p_id) x " +
+                "  JOIN patients p ON p.patient_id = p_id " +
+                "  JOIN users u ON u.user_id = p.user_id; " +
+                "END"),
+            trigger("trg_appointments_summary_ins", "AFTER INSERT ON appointments",
+                "CALL refresh_patient_summary(NEW.patient_id)"),
+            trigger("trg_appointments_summary_upd", "AFTER UPDATE ON appointments",
+                "BEGIN " +
+                "  CALL refresh_patient_summary(NEW.patient_id); " +
+                "  IF OLD.patient_id <> NEW.patient_id THEN CALL refresh_patient_summary(OLD.patient_id); END IF; " +
+                "END"),
+            trigger("trg_appointments_summary_del", "AFTER DELETE ON appointments",
+                "CALL refresh_patient_summary(OLD.patient_id)"),
+            trigger("trg_medical_records_summary_ins", "AFTER INSERT ON medical_records",
+                "CALL refresh_patient_summary(NEW.patient_id)"),
+            trigger("trg_medical_records_summary_upd", "AFTER UPDATE ON medical_records",
+                "BEGIN " +
+                "  CALL refresh_patient_summary(NEW.patient_id); " +
+                "  IF OLD.patient_id <> NEW.patient_id THEN CALL refresh_patient_summary(OLD.patient_id); END IF; " +
+                "END"),
+            trigger("trg_medical_records_summary_del", "AFTER DELETE ON medical_records",
+                "CALL refresh_patient_summary(OLD.patient_id)"),
+            trigger("trg_patients_summary_upd", "AFTER UPDATE ON patients",
+                "CALL refresh_patient_summary(NEW.patient_id)"),
+            trigger("trg_users_summary_upd", "AFTER UPDATE ON users",
+                "UPDATE patient_summary ps JOIN patients p ON ps.patient_id = p.patient_id " +
+                "SET ps.name = NEW.name WHERE p.user_id = NEW.user_id AND NOT (OLD.name <=> NEW.name)"),
+            // Initial fill, after the triggers so nothing written meanwhile is missed
+            sql("REPLACE INTO patient_summary (doctor_id, patient_id, name, date_of_birth, last_visit, latest_diagnosis) " +
+                "SELECT x.doctor_id, p.patient_id, u.name, p.date_of_birth, lv.last_visit, " +
+                "  (SELECT mr.diagnosis FROM medical_records mr WHERE mr.patient_id = p.patient_id " +
+                "     ORDER BY mr.record_date DESC, mr.recorded_at DESC LIMIT 1) " +
+                "FROM (SELECT DISTINCT doctor_id, patient_id FROM appointments) x " +
+                "JOIN patients p ON p.patient_id = x.patient_id " +
+                "JOIN users u ON u.user_id = p.user_id " +
+                "JOIN (SELECT patient_id, MAX(appointment_date) AS last_visit FROM appointments " +
+                "      GROUP BY patient_id) lv ON lv.patient_id = p.patient_id")));
+
+        // The database refuses double bookings, whichever client books (see SlotAvailability):
+        // active_slot is the appointment time while the appointment is live and NULL once cancelled
+        MIGRATIONS.add(new Migration(7, "One live appointment per doctor and slot",
+            addColumn("appointments", "active_slot",
+                "TIME AS (IF(status = 'Cancelled', NULL, appointment_time)) STORED"),
+            requireNoDoubleBookings(),
+            addUniqueIndex("appointments", SlotAvailability.SLOT_INDEX, "doctor_id, appointment_date, active_slot")));
+
+        // Optimistic concurrency: every UPDATE bumps row_version, whoever issues it, and editors
+        // compare-and-set on the version they read instead of locking the row while a dialog is open
+        MIGRATIONS.add(new Migration(8, "row_version on users and appointments",
+            addColumn("users", "row_version", "INT UNSIGNED NOT NULL DEFAULT 0"),
+            addColumn("appointments", "row_version", "INT UNSIGNED NOT NULL DEFAULT 0"),
+            trigger("trg_users_row_version", "BEFORE UPDATE ON users",
+                "SET NEW.row_version = OLD.row_version + 1"),
+            trigger("trg_appointments_row_version", "BEFORE UPDATE ON appointments",
+                "SET NEW.row_version = OLD.row_version + 1")));
+
+        // When any user's display name last changed, so cached report months (ReportMonthCache)
+        // that print names can tell they are out of date without joining users per month
+        MIGRATIONS.add(new Migration(9, "users.name_changed_at for cached report months",
+            addColumn("users", "name_changed_at", "TIMESTAMP(3) NULL"),
+            addIndex("users", "idx_users_name_changed", "name_changed_at"),
+            trigger("trg_users_name_changed", "BEFORE UPDATE ON users",
+                "SET NEW.name_changed_at = IF(OLD.name <=> NEW.name, OLD.name_changed_at, CURRENT_TIMESTAMP(3))")));
+    }
+
+    private static volatile boolean migrated = false;
+
+    public static void main(String[] args) {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            System.out.println("Schema is at version " + currentVersion(conn));
+        } catch (SQLException e) {
+            System.out.println("❌ Schema migration failed: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            DatabaseConnection.closeConnection();
+        }
+    }
+
+    public static int latestVersion() {
+        return MIGRATIONS.get(MIGRATIONS.size() - 1).version;
+    }
+
+    // Applies every migration newer than the database's version
+    public static synchronized void migrate(Connection conn) throws SQLException {
+        if (migrated) return;
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("CREATE TABLE IF NOT EXISTS schema_version (" +
+                               "version INT PRIMARY KEY, " +
+                               "description VARCHAR(200) NOT NULL, " +
+                               "applied_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP)");
+        }
+        if (currentVersion(conn) >= latestVersion()) {
+            migrated = true;
+            return;
+        }
+
+        lock(conn);
+        try {
+            // Re-read under the lock: another client may have just finished
+            int current = currentVersion(conn);
+            for (Migration m : MIGRATIONS) {
+                if (m.version <= current) continue;
+                // MySQL commits DDL implicitly, so each step is its own unit; steps are re-runnable
+                for (Step step : m.steps) {
+                    step.apply(conn);
+                }
+                try (PreparedStatement pstmt = conn.prepareStatement(
+                        "INSERT INTO schema_version (version, description) VALUES (?, ?)")) {
+                    pstmt.setInt(1, m.version);
+                    pstmt.setString(2, m.description);
+                    pstmt.executeUpdate();
+                }
+                System.out.println("Applied schema migration " + m.version + ": " + m.description);
+            }
+        } finally {
+            unlock(conn);
+        }
+        migrated = true;
+    }
+
+    public static int currentVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(version), 0) FROM schema_version")) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    private static Step sql(String statement) {
+        return conn -> {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate(statement);
+            }
+        };
+    }
+
+    // Replaces the trigger, so the step can be re-run
+    private static Step trigger(String name, String timing, String body) {
+        return conn -> {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate("DROP TRIGGER IF EXISTS " + name);
+                stmt.executeUpdate("CREATE TRIGGER " + name + " " + timing + " FOR EACH ROW " + body);
+            }
+        };
+    }
+
+    private static Step addColumn(String table, String column, String definition) {
+        return conn -> {
+            if (DatabaseConnection.columnExists(conn, table, column)) return;
+            try (Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate("ALTER TABLE " + table + " ADD COLUMN " + column + " " + definition);
+            }
+        };
+    }
+
+    private static Step addIndex(String table, String index, String columns) {
+        return addIndex(table, "INDEX", index, columns);
+    }
+
+    private static Step addUniqueIndex(String table, String index, String columns) {
+        return addIndex(table, "UNIQUE INDEX", index, columns);
+    }
+
+    private static Step addIndex(String table, String kind, String index, String columns) {
+        return conn -> {
+            if (indexExists(conn, table, index)) return;
+            try (Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate("ALTER TABLE " + table + " ADD " + kind + " " + index + " (" + columns + ")");
+            }
+        };
+    }
+
+    // Existing double bookings would break the unique slot index. List them rather than guess which
+    // one to cancel; the migration resumes from here once they are resolved
+    private static Step requireNoDoubleBookings() {
+        return conn -> {
+            String query = "SELECT doctor_id, appointment_date, active_slot FROM appointments " +
+                           "WHERE active_slot IS NOT NULL " +
+                           "GROUP BY doctor_id, appointment_date, active_slot HAVING COUNT(*) > 1 LIMIT 10";
+            List<String> clashes = new ArrayList<>();
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery(query)) {
+                while (rs.next()) {
+                    clashes.add(rs.getString(1) + " " + rs.getString(2) + " " + rs.getString(3));
+                }
+            }
+            if (!clashes.isEmpty()) {
+                throw new SQLException("Double-booked slots must be cancelled or moved before migrating: " +
+                                       String.join(", ", clashes));
+            }
+        };
+    }
+
+    private static boolean indexExists(Connection conn, String table, String index) throws SQLException {
+        String query = "SELECT COUNT(*) FROM information_schema.STATISTICS " +
+                       "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND INDEX_NAME = ?";
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setString(1, table);
+            pstmt.setString(2, index);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() && rs.getInt(1) > 0;
+            }
+        }
+    }
+
+    private static void lock(Connection conn) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            pstmt.setString(1, LOCK_NAME);
+            pstmt.setInt(2, LOCK_TIMEOUT_SECONDS);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next() || rs.getInt(1) != 1) {
+                    throw new SQLException("Timed out waiting for another client's schema migration");
+                }
+            }
+        }
+    }
+
+    private static void unlock(Connection conn) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            pstmt.setString(1, LOCK_NAME);
+            pstmt.executeQuery().close();
+        }
+    }
+}
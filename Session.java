@@ -0,0 +1,48 @@
+// Session.java - Who is logged in, resolved once by LoginFrame
+/*
+  Carries the ids the dashboards scope their queries on, so each window
+  reads only the signed-in doctor's or patient's rows. doctorId is set only
+  for doctors and patientId only for patients.
+*/
+public class Session {
+    private final String userId;
+    private final String username;
+    private final String name;
+    private final String role;
+    private final String doctorId;
+    private final String patientId;
+
+    public Session(String userId, String username, String name, String role,
+                   String doctorId, String patientId) {
+        this.userId = userId;
+        this.username = username;
+        this.name = name;
+        this.role = role;
+        this.doctorId = doctorId;
+        this.patientId = patientId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public String getDoctorId() {
+        return doctorId;
+    }
+
+    public String getPatientId() {
+        return patientId;
+    }
+}
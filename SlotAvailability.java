@@ -0,0 +1,236 @@
+// SlotAvailability.java - Free appointment slots per doctor and day, with an atomic reserve
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+  One BitSet per (doctor, day). Bit i is set when SLOTS[i] is taken. When a
+  day is first asked for, it is loaded together with the next
+  hms.slotLoadDays days, in one range read over the
+  (doctor_id, appointment_date) index. Each day is read again after
+  hms.slotRefreshMs so that bookings made from other clients show up.
+  Checking whether a slot is free is a bit test.
+
+  book() holds the slot's bit under the day's lock while the INSERT runs,
+  so two bookings for the same slot from this client never both reach the
+  database. Between clients, the unique index on
+  (doctor_id, appointment_date, active_slot) decides (see SchemaMigrator).
+  active_slot is NULL for cancelled rows, so a cancelled slot can be
+  booked again. The losing client gets a duplicate-key error, and book()
+  reports that as "slot taken".
+*/
+public class SlotAvailability {
+    private static final LocalTime[] SLOTS = {
+        LocalTime.of(9, 0), LocalTime.of(10, 0), LocalTime.of(11, 0),
+        LocalTime.of(14, 0), LocalTime.of(15, 0), LocalTime.of(16, 0)
+    };
+    private static final DateTimeFormatter LABEL = DateTimeFormatter.ofPattern("h:mm a", Locale.ENGLISH);
+    private static final int LOAD_DAYS = Integer.getInteger("hms.slotLoadDays", 14);
+    private static final long REFRESH_MS = Long.getLong("hms.slotRefreshMs", 60_000L);
+
+    // Unique index created in SchemaMigrator; MySQL ER_DUP_ENTRY names it
+    static final String SLOT_INDEX = "uq_appointments_slot";
+    private static final int DUPLICATE_KEY = 1062;
+
+    private static class Day {
+        final BitSet taken = new BitSet(SLOTS.length); // booked in the database
+        final BitSet held = new BitSet(SLOTS.length);  // reserved here, INSERT in flight
+        long loadedAt; // 0 = not loaded yet
+    }
+
+    private static final Map<String, Map<LocalDate, Day>> days = new ConcurrentHashMap<>();
+
+    // Labels of the slots still free for the doctor on that date (none for past times)
+    public static List<String> freeSlots(String doctorId, LocalDate date) throws SQLException {
+        List<String> free = new ArrayList<>();
+        LocalDate today = LocalDate.now();
+        if (doctorId == null || date.isBefore(today)) return free;
+
+        Day day = loadedDay(doctorId, date);
+        LocalTime now = LocalTime.now();
+        synchronized (day) {
+            for (int i = 0; i < SLOTS.length; i++) {
+                if (day.taken.get(i) || day.held.get(i)) continue;
+                if (date.equals(today) && !SLOTS[i].isAfter(now)) continue;
+                free.add(SLOTS[i].format(LABEL));
+            }
+        }
+        return free;
+    }
+
+    // The slot time behind a label from freeSlots(), or null
+    public static LocalTime slotTime(String label) {
+        if (label == null) return null;
+        for (LocalTime slot : SLOTS) {
+            if (slot.format(LABEL).equals(label)) return slot;
+        }
+        return null;
+    }
+
+    /*
+      Inserts a Scheduled appointment unless the slot is already taken.
+      Returns false when it is: held by another booking in progress here,
+      already booked, or taken from another client first (duplicate key).
+      A time that is not one of the standard slots is checked only by the
+      database.
+    */
+    public static boolean book(Connection conn, String appointmentId, String patientId, String doctorId,
+                               LocalDate date, LocalTime time, String type) throws SQLException {
+        int slot = slotIndex(time);
+        Day day = slot >= 0 ? loadedDay(doctorId, date) : null;
+        if (day != null) {
+            synchronized (day) {
+                if (day.taken.get(slot) || day.held.get(slot)) return false;
+                day.held.set(slot);
+            }
+        }
+
+        boolean taken = false;
+        try {
+            String query = "INSERT INTO appointments (appointment_id, patient_id, doctor_id, " +
+                           "appointment_date, appointment_time, type, status) VALUES (?, ?, ?, ?, ?, ?, 'Scheduled')";
+            try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+                pstmt.setString(1, appointmentId);
+                pstmt.setString(2, patientId);
+                pstmt.setString(3, doctorId);
+                pstmt.setDate(4, Date.valueOf(date));
+                pstmt.setTime(5, Time.valueOf(time));
+                pstmt.setString(6, type);
+                taken = pstmt.executeUpdate() > 0;
+            }
+            return taken;
+        } catch (SQLException e) {
+            if (!isSlotConflict(e)) throw e;
+            taken = true;
+            return false;
+        } finally {
+            if (day != null) {
+                synchronized (day) {
+                    day.held.clear(slot);
+                    if (taken) day.taken.set(slot);
+                }
+            }
+        }
+    }
+
+    /*
+      Cancels one of the patient's appointments and frees its slot. Only
+      succeeds while the row is still at rowVersion, the version the caller
+      displayed; returns false if it was changed or cancelled since.
+    */
+    public static boolean cancel(Connection conn, String appointmentId, String patientId,
+                                 long rowVersion) throws SQLException {
+        String doctorId;
+        LocalDate date;
+        LocalTime time;
+        String select = "SELECT doctor_id, appointment_date, appointment_time FROM appointments " +
+                        "WHERE appointment_id = ? AND patient_id = ? AND row_version = ? AND status <> 'Cancelled'";
+        try (PreparedStatement pstmt = conn.prepareStatement(select)) {
+            pstmt.setString(1, appointmentId);
+            pstmt.setString(2, patientId);
+            pstmt.setLong(3, rowVersion);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next()) return false;
+                doctorId = rs.getString("doctor_id");
+                date = rs.getDate("appointment_date").toLocalDate();
+                time = rs.getTime("appointment_time").toLocalTime();
+            }
+        }
+
+        // Compare-and-set: the trigger bumps row_version, so a concurrent change makes this match nothing
+        String update = "UPDATE appointments SET status = 'Cancelled' " +
+                        "WHERE appointment_id = ? AND patient_id = ? AND row_version = ? AND status <> 'Cancelled'";
+        try (PreparedStatement pstmt = conn.prepareStatement(update)) {
+            pstmt.setString(1, appointmentId);
+            pstmt.setString(2, patientId);
+            pstmt.setLong(3, rowVersion);
+            if (pstmt.executeUpdate() == 0) return false;
+        }
+        released(doctorId, date, time);
+        return true;
+    }
+
+    // Frees a slot in memory after its appointment was cancelled
+    public static void released(String doctorId, LocalDate date, LocalTime time) {
+        int slot = slotIndex(time);
+        Map<LocalDate, Day> byDate = days.get(doctorId);
+        Day day = byDate != null ? byDate.get(date) : null;
+        if (slot < 0 || day == null) return;
+        synchronized (day) {
+            day.taken.clear(slot);
+        }
+    }
+
+    // True when the insert lost the race for a slot to another booking
+    public static boolean isSlotConflict(SQLException e) {
+        return e.getErrorCode() == DUPLICATE_KEY && e.getMessage() != null && e.getMessage().contains(SLOT_INDEX);
+    }
+
+    private static int slotIndex(LocalTime time) {
+        if (time == null) return -1;
+        for (int i = 0; i < SLOTS.length; i++) {
+            if (SLOTS[i].equals(time)) return i;
+        }
+        return -1;
+    }
+
+    private static Day day(String doctorId, LocalDate date) {
+        return days.computeIfAbsent(doctorId, id -> new ConcurrentHashMap<>())
+                   .computeIfAbsent(date, d -> new Day());
+    }
+
+    // The day, (re)loaded with the days after it when missing or older than REFRESH_MS
+    private static Day loadedDay(String doctorId, LocalDate date) throws SQLException {
+        Day day = day(doctorId, date);
+        synchronized (day) {
+            if (day.loadedAt != 0 && System.currentTimeMillis() - day.loadedAt < REFRESH_MS) return day;
+        }
+        loadRange(doctorId, date, date.plusDays(Math.max(1, LOAD_DAYS)));
+        return day;
+    }
+
+    private static void loadRange(String doctorId, LocalDate from, LocalDate to) throws SQLException {
+        Map<LocalDate, BitSet> taken = new HashMap<>();
+        String query = "SELECT appointment_date, appointment_time FROM appointments " +
+                       "WHERE doctor_id = ? AND appointment_date >= ? AND appointment_date < ? " +
+                       "AND status <> 'Cancelled'";
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            if (conn == null) throw new SQLException("No database connection available");
+            try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+                pstmt.setString(1, doctorId);
+                pstmt.setDate(2, Date.valueOf(from));
+                pstmt.setDate(3, Date.valueOf(to));
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        int slot = slotIndex(rs.getTime("appointment_time").toLocalTime());
+                        if (slot < 0) continue;
+                        taken.computeIfAbsent(rs.getDate("appointment_date").toLocalDate(),
+                                              d -> new BitSet(SLOTS.length)).set(slot);
+                    }
+                }
+            }
+        }
+
+        // Past days can no longer be booked; drop them so the map stays small
+        days.get(doctorId).keySet().removeIf(date -> date.isBefore(LocalDate.now()));
+
+        long now = System.currentTimeMillis();
+        for (LocalDate date = from; date.isBefore(to); date = date.plusDays(1)) {
+            Day day = day(doctorId, date);
+            BitSet bits = taken.get(date);
+            synchronized (day) {
+                day.taken.clear();
+                if (bits != null) day.taken.or(bits);
+                day.loadedAt = now;
+            }
+        }
+    }
+}
@@ -0,0 +1,170 @@
+// StatementCache.java - Per-connection LRU cache of prepared statements keyed by SQL text
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+  Owned by one physical connection inside ConnectionPool. close() on a cached
+  statement closes its open ResultSet and parks the statement for the next
+  caller with the same SQL instead of releasing the server-side handle.
+*/
+class StatementCache {
+    // Counters are shared by every connection so the cache can be sized as a whole
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+    private static final AtomicLong evictions = new AtomicLong();
+
+    private final Connection physical;
+    private final int maxSize;
+    private final LinkedHashMap<String, CachedStatement> cache;
+
+    StatementCache(Connection physical, int maxSize) {
+        this.physical = physical;
+        this.maxSize = maxSize;
+        // accessOrder=true turns the map into an LRU list
+        this.cache = new LinkedHashMap<String, CachedStatement>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+                if (size() <= StatementCache.this.maxSize) return false;
+                evictions.incrementAndGet();
+                eldest.getValue().evict();
+                return true;
+            }
+        };
+    }
+
+    static long getHits() { return hits.get(); }
+    static long getMisses() { return misses.get(); }
+    static long getEvictions() { return evictions.get(); }
+
+    // Returns null when the caller should fall back to an ordinary, uncached statement
+    synchronized PreparedStatement prepare(String sql) throws SQLException {
+        if (maxSize <= 0) return null;
+
+        CachedStatement cached = cache.get(sql);
+        if (cached != null && !cached.physicalStatement.isClosed()) {
+            if (cached.inUse) {
+                // Same SQL already open by this borrower (e.g. nested loop) - don't share it
+                return null;
+            }
+            hits.incrementAndGet();
+            return cached.checkOut();
+        }
+
+        misses.incrementAndGet();
+        cached = new CachedStatement(physical.prepareStatement(sql));
+        cache.put(sql, cached);
+        return cached.checkOut();
+    }
+
+    // Called when the connection goes back to the pool: reclaim anything the borrower forgot to close
+    synchronized void returnAll() {
+        for (CachedStatement cached : cache.values()) {
+            if (cached.inUse) cached.checkIn();
+        }
+    }
+
+    synchronized void closeAll() {
+        for (CachedStatement cached : cache.values()) {
+            cached.evict();
+        }
+        cache.clear();
+    }
+
+    private static void closeQuietly(AutoCloseable closeable) {
+        if (closeable == null) return;
+        try {
+            closeable.close();
+        } catch (Exception ignored) {
+        }
+    }
+
+    private class CachedStatement {
+        final PreparedStatement physicalStatement;
+        boolean inUse;
+        boolean evicted;
+        ResultSet openResult;
+        CheckoutHandler currentHandler;
+
+        CachedStatement(PreparedStatement physicalStatement) {
+            this.physicalStatement = physicalStatement;
+        }
+
+        PreparedStatement checkOut() {
+            inUse = true;
+            currentHandler = new CheckoutHandler(this);
+            return (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                currentHandler);
+        }
+
+        void checkIn() {
+            if (currentHandler != null) currentHandler.closed.set(true);
+            currentHandler = null;
+            inUse = false;
+            closeQuietly(openResult);
+            openResult = null;
+            if (evicted) {
+                closeQuietly(physicalStatement);
+                return;
+            }
+            try {
+                physicalStatement.clearParameters();
+                physicalStatement.clearWarnings();
+            } catch (SQLException e) {
+                closeQuietly(physicalStatement);
+            }
+        }
+
+        void evict() {
+            evicted = true;
+            // A statement evicted while checked out is closed when its user gives it back
+            if (!inUse) closeQuietly(physicalStatement);
+        }
+    }
+
+    private class CheckoutHandler implements InvocationHandler {
+        private final CachedStatement cached;
+        private final AtomicBoolean closed = new AtomicBoolean(false);
+
+        CheckoutHandler(CachedStatement cached) {
+            this.cached = cached;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (closed.compareAndSet(false, true)) {
+                        synchronized (StatementCache.this) {
+                            cached.checkIn();
+                        }
+                    }
+                    return null;
+                case "isClosed":
+                    return closed.get() || cached.physicalStatement.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    if (closed.get()) throw new SQLException("Statement has already been closed");
+                    try {
+                        Object result = method.invoke(cached.physicalStatement, args);
+                        if (result instanceof ResultSet) {
+                            cached.openResult = (ResultSet) result;
+                        }
+                        return result;
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        }
+    }
+}
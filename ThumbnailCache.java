@@ -0,0 +1,50 @@
+// ThumbnailCache.java - Process-wide LRU of decoded item thumbnails, bounded by memory size
+import java.awt.image.BufferedImage;
+import java.util.*;
+
+/*
+  Thumbnails are small, but decoded they are width * height * 4 bytes each,
+  so the cache is bounded by total pixel memory rather than entry count
+  (override with -Dhms.thumbnailCacheBytes=N). Least recently viewed
+  thumbnails are dropped first. Item images never change once reported, so
+  entries need no invalidation beyond remove() when an item is closed.
+*/
+public class ThumbnailCache {
+    private static final long MAX_BYTES = Long.getLong("hms.thumbnailCacheBytes", 32L * 1024 * 1024);
+
+    private static long usedBytes = 0;
+    private static final LinkedHashMap<String, BufferedImage> thumbnails =
+        new LinkedHashMap<>(64, 0.75f, true);
+
+    public static synchronized BufferedImage get(String itemId) {
+        return thumbnails.get(itemId);
+    }
+
+    public static synchronized void put(String itemId, BufferedImage thumbnail) {
+        BufferedImage old = thumbnails.put(itemId, thumbnail);
+        if (old != null) usedBytes -= sizeOf(old);
+        usedBytes += sizeOf(thumbnail);
+
+        Iterator<Map.Entry<String, BufferedImage>> it = thumbnails.entrySet().iterator();
+        while (usedBytes > MAX_BYTES && it.hasNext()) {
+            Map.Entry<String, BufferedImage> eldest = it.next();
+            // Never evict the entry just added
+            if (eldest.getKey().equals(itemId)) continue;
+            usedBytes -= sizeOf(eldest.getValue());
+            it.remove();
+        }
+    }
+
+    public static synchronized void remove(String itemId) {
+        BufferedImage old = thumbnails.remove(itemId);
+        if (old != null) usedBytes -= sizeOf(old);
+    }
+
+    public static synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    private static long sizeOf(BufferedImage image) {
+        return (long) image.getWidth() * image.getHeight() * 4;
+    }
+}
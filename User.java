@@ -1,8 +1,10 @@
 public abstract class User {
     protected String username;
+    protected final Session session;
 
-    public User(String username) {
-        this.username = username;
+    public User(Session session) {
+        this.session = session;
+        this.username = session.getUsername();
     }
 
     public abstract void openDashboard(); 
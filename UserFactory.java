@@ -1,20 +1,21 @@
 public class UserFactory {
 
-    public static User getUser(String role, String username) {
+    public static User getUser(Session session) {
 
-        if (role == null) return new Patient(username);
+        String role = session.getRole();
+        if (role == null) return new Patient(session);
 
         role = role.toLowerCase();
 
         switch (role) {
             case "admin":
-                return new Admin(username);
+                return new Admin(session);
 
             case "doctor":
-                return new Doctor(username);
+                return new Doctor(session);
 
             default:
-                return new Patient(username);
+                return new Patient(session);
         }
     }
 }